@@ -0,0 +1,101 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.LibraryApiApplication;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import com.book.libraryapi.Search.BookSearchIndexLoader;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application on a private in-memory H2 database and seeds it
+ * through the regular repositories, so the schema always matches the entities.
+ * The adaptive concurrency limiter is off: benchmarks measure the service, not
+ * how many requests the limiter lets through. The query cache is off too, so
+ * repeated finds reach the database instead of replaying a cached result.
+ */
+public final class BenchmarkApplication {
+
+    private static final int SEED_CHUNK = 1000;
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        args.add("--server.port=0");
+        args.add("--application.mail.outbox.enabled=false");
+        args.add("--application.limiter.enabled=false");
+        args.add("--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--spring.main.banner-mode=off");
+        for (String extra : extraArgs) {
+            args.add(extra);
+        }
+        return SpringApplication.run(LibraryApiApplication.class, args.toArray(new String[0]));
+    }
+
+    /**
+     * Inserts {@code books} books and, for each of them, {@code returnedLoansPerBook}
+     * returned loans, so loan-history dependent queries see a realistic table.
+     */
+    public static List<Book> seed(ConfigurableApplicationContext context, int books, int returnedLoansPerBook) {
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        LoanRepository loanRepository = context.getBean(LoanRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Book> saved = new ArrayList<>(books);
+        for (int start = 0; start < books; start += SEED_CHUNK) {
+            int end = Math.min(books, start + SEED_CHUNK);
+            List<Book> chunk = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                chunk.add(book(i));
+            }
+            saved.addAll(tx.execute(status -> bookRepository.saveAll(chunk)));
+        }
+
+        if (returnedLoansPerBook > 0) {
+            List<Loan> loans = new ArrayList<>(SEED_CHUNK);
+            for (Book book : saved) {
+                for (int i = 0; i < returnedLoansPerBook; i++) {
+                    loans.add(Loan.builder()
+                            .book(book)
+                            .customer("Customer " + i)
+                            .customerEmail("customer" + i + "@email.com")
+                            .loanDate(LocalDate.now().minusDays(30))
+                            .returned(true)
+                            .build());
+                    if (loans.size() == SEED_CHUNK) {
+                        List<Loan> chunk = new ArrayList<>(loans);
+                        tx.execute(status -> loanRepository.saveAll(chunk));
+                        loans.clear();
+                    }
+                }
+            }
+            if (!loans.isEmpty()) {
+                tx.execute(status -> loanRepository.saveAll(loans));
+            }
+        }
+        // seeding bypasses BookService, so rebuild the search index from the table
+        context.getBeanProvider(BookSearchIndexLoader.class).ifAvailable(BookSearchIndexLoader::build);
+        return saved;
+    }
+
+    public static Book book(int i) {
+        return Book.builder()
+                .title("Title " + i)
+                .author("Author " + (i % 500))
+                .isbn("isbn-" + i)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookService.find with the Example/CONTAINING matcher used by GET /books,
+ * and the create path behind POST /books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    int catalogSize;
+
+    @Param({"true", "false"})
+    boolean searchIndex;
+
+    ConfigurableApplicationContext context;
+    BookService service;
+    PageRequest firstPage = PageRequest.of(0, 20);
+    long created;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = BenchmarkApplication.start("--application.search.index.enabled=" + searchIndex);
+        BenchmarkApplication.seed(context, catalogSize, 0);
+        service = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findByTitle(){
+        return service.find(Book.builder().title("title 42").build(), firstPage);
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthorAndIsbn(){
+        return service.find(Book.builder().author("AUTHOR 7").isbn("isbn-1").build(), firstPage);
+    }
+
+    @Benchmark
+    public Page<Book> deepOffsetPage(){
+        return service.find(new Book(), PageRequest.of(catalogSize / 20 - 1, 20));
+    }
+
+    @Benchmark
+    public Slice<Book> deepSeekPage(){
+        return service.findAfter(new Book(), (long) catalogSize - 20, 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Book create(){
+        return service.save(Book.builder().title("New title").author("New author").isbn("new-" + created++).build());
+    }
+}
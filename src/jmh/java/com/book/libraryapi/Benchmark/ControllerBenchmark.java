@@ -0,0 +1,83 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.Controller.LoanController;
+import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Dto.LoanDto;
+import com.book.libraryapi.Dto.LoanFilterDTO;
+import com.book.libraryapi.Mapper.DtoMapper;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.LoanRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The controller side of the list endpoints: LoanController.get (query plus
+ * DTO mapping) and Jackson serialization of a PageImpl&lt;BookDTO&gt; response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ControllerBenchmark {
+
+    @Param({"1000"})
+    int catalogSize;
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    LoanController loanController;
+    ObjectMapper objectMapper;
+    LoanFilterDTO filter;
+    PageRequest page;
+    Page<BookDTO> bookPage;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = BenchmarkApplication.start();
+        List<Book> books = BenchmarkApplication.seed(context, catalogSize, 0);
+
+        List<Loan> loans = new ArrayList<>(books.size());
+        for (Book book : books) {
+            loans.add(Loan.builder().book(book).customer("Customer").customerEmail("customer@email.com")
+                    .loanDate(LocalDate.now()).build());
+        }
+        context.getBean(LoanRepository.class).saveAll(loans);
+
+        loanController = context.getBean(LoanController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        filter = LoanFilterDTO.builder().customer("Customer").build();
+        page = PageRequest.of(0, pageSize);
+
+        DtoMapper mapper = context.getBean(DtoMapper.class);
+        List<BookDTO> content = books.stream().limit(pageSize).map(mapper::toDto).collect(Collectors.toList());
+        bookPage = new PageImpl<>(content, page, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public Page<LoanDto> loanControllerGet(){
+        return loanController.get(filter, page);
+    }
+
+    @Benchmark
+    public byte[] serializeBookPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookPage);
+    }
+}
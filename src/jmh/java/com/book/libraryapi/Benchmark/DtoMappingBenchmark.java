@@ -0,0 +1,61 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Dto.LoanDto;
+import com.book.libraryapi.Mapper.DtoMapper;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps one page of loans the way LoanController.get does, once with the
+ * ModelMapper calls it used to make and once with {@link DtoMapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoMappingBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    ModelMapper modelMapper;
+    DtoMapper dtoMapper;
+    List<Loan> page;
+
+    @Setup
+    public void setUp(){
+        modelMapper = new ModelMapper();
+        dtoMapper = new DtoMapper();
+        page = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            Book book = Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build();
+            page.add(Loan.builder().id(i).book(book).customer("Customer " + i)
+                    .customerEmail("customer" + i + "@email.com").loanDate(LocalDate.now()).build());
+        }
+    }
+
+    @Benchmark
+    public void modelMapper(Blackhole bh){
+        for (Loan loan : page) {
+            BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+            LoanDto loanDto = modelMapper.map(loan, LoanDto.class);
+            loanDto.setBookDTO(bookDTO);
+            bh.consume(loanDto);
+        }
+    }
+
+    @Benchmark
+    public void dtoMapper(Blackhole bh){
+        for (Loan loan : page) {
+            bh.consume(dtoMapper.toDto(loan));
+        }
+    }
+}
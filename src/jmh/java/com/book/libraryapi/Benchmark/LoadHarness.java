@@ -0,0 +1,348 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.Model.Book;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Open-model load harness: boots the application on a private H2 database,
+ * seeds {@code catalog} books and drives {@code POST /books}, {@code GET /books},
+ * {@code POST /loans}, {@code PATCH /loans/{id}} and {@code GET /loans} at fixed
+ * arrival rates for {@code seconds}, after {@code warmup} seconds of the same mix.
+ * <p>
+ * Requests are fired on schedule whether or not earlier ones have answered, and
+ * latency is measured from the intended send time, so a stall shows up in the
+ * percentiles instead of silently slowing the generator (coordinated omission).
+ * Each endpoint reports throughput, p50/p95/p99/p99.9/max latency and error rate,
+ * and its full HDR percentile distribution is written to {@code target/load-harness}.
+ *
+ * <pre>
+ * mvn -Pbenchmarks -DskipTests test-compile exec:exec@load-harness \
+ *     -Dharness.args="postBooks=20,getBooks=100,postLoans=20,patchLoans=20,getLoans=50 60 10000 10"
+ * </pre>
+ *
+ * Rates are requests per second; an endpoint left out of the mix is not driven.
+ * Loans are only requested for books the harness knows to be free and returned
+ * through the loans it opened, so 4xx answers are real errors, not test noise.
+ */
+public final class LoadHarness {
+
+    private static final String DEFAULT_MIX = "postBooks=20,getBooks=100,postLoans=20,patchLoans=20,getLoans=50";
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final int MAX_IN_FLIGHT = 2000;
+    private static final File REPORT_DIR = new File("target/load-harness");
+
+    private LoadHarness() {
+    }
+
+    enum Endpoint {
+        POST_BOOKS("postBooks", "POST /books"),
+        GET_BOOKS("getBooks", "GET /books"),
+        POST_LOANS("postLoans", "POST /loans"),
+        PATCH_LOANS("patchLoans", "PATCH /loans/{id}"),
+        GET_LOANS("getLoans", "GET /loans");
+
+        final String key;
+        final String label;
+
+        Endpoint(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        static Endpoint of(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint '" + key + "', expected one of " + DEFAULT_MIX);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<Endpoint, Integer> mix = parseMix(args.length > 0 ? args[0] : DEFAULT_MIX);
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int catalog = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int warmup = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        ConfigurableApplicationContext context = BenchmarkApplication.start(
+                "--server.tomcat.accept-count=" + MAX_IN_FLIGHT);
+        try {
+            List<Book> books = BenchmarkApplication.seed(context, catalog, 2);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Target target = new Target("http://localhost:" + port, books);
+
+            if (warmup > 0) {
+                drive(target, mix, TimeUnit.SECONDS.toNanos(warmup));
+            }
+            Map<Endpoint, Stats> stats = drive(target, mix, TimeUnit.SECONDS.toNanos(seconds));
+            report(stats, seconds);
+        } finally {
+            context.close();
+        }
+    }
+
+    static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String entry : spec.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Malformed mix entry '" + entry + "', expected name=rate");
+            }
+            int rate = Integer.parseInt(pair[1].trim());
+            if (rate > 0) {
+                mix.put(Endpoint.of(pair[0].trim()), rate);
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * Runs one pacing thread per endpoint for the given duration and waits for
+     * the requests still in flight, returning fresh stats for this phase only.
+     */
+    private static Map<Endpoint, Stats> drive(Target target, Map<Endpoint, Integer> mix,
+                                              long durationNanos) throws InterruptedException {
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        mix.keySet().forEach(endpoint -> stats.put(endpoint, new Stats()));
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long end = start + durationNanos;
+        List<Thread> pacers = new ArrayList<>(mix.size());
+        for (Map.Entry<Endpoint, Integer> entry : mix.entrySet()) {
+            Endpoint endpoint = entry.getKey();
+            long interval = TimeUnit.SECONDS.toNanos(1) / entry.getValue();
+            Thread pacer = new Thread(() -> pace(target, endpoint, stats.get(endpoint), start, end, interval),
+                    "load-" + endpoint.key);
+            pacer.start();
+            pacers.add(pacer);
+        }
+        for (Thread pacer : pacers) {
+            pacer.join();
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (target.inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+
+    private static void pace(Target target, Endpoint endpoint, Stats stats, long start, long end, long interval) {
+        for (long intended = start; intended < end; intended += interval) {
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            fire(target, endpoint, stats, intended);
+        }
+    }
+
+    private static void fire(Target target, Endpoint endpoint, Stats stats, long intended) {
+        Call call = target.call(endpoint);
+        if (call == null) {
+            // nothing to act on yet (no free book / no open loan): not a server error
+            stats.skipped.incrementAndGet();
+            return;
+        }
+        if (target.inFlight.incrementAndGet() > MAX_IN_FLIGHT) {
+            // the server is this far behind: count the miss instead of queueing unboundedly
+            target.inFlight.decrementAndGet();
+            call.onFailure.run();
+            stats.record(intended, false);
+            stats.dropped.incrementAndGet();
+            return;
+        }
+        target.http.sendAsync(call.request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, ex) -> {
+                    target.inFlight.decrementAndGet();
+                    boolean ok = ex == null && response.statusCode() / 100 == 2;
+                    stats.record(intended, ok);
+                    if (ok) {
+                        call.onSuccess.accept(response.body());
+                    } else {
+                        call.onFailure.run();
+                    }
+                });
+    }
+
+    private static void report(Map<Endpoint, Stats> stats, int seconds) {
+        REPORT_DIR.mkdirs();
+        System.out.printf("%n%-18s %9s %9s %9s %9s %9s %9s %9s %9s %8s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms",
+                "errors", "error %", "skipped");
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats own = entry.getValue();
+            Histogram histogram = own.recorder.getIntervalHistogram();
+            long requests = histogram.getTotalCount();
+            long errors = own.errors.get();
+            System.out.printf("%-18s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %8.2f %8d%n",
+                    entry.getKey().label, requests, requests / (double) seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(95)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()), errors,
+                    requests == 0 ? 0 : errors * 100.0 / requests, own.skipped.get());
+            if (own.dropped.get() > 0) {
+                System.out.printf("  %d %s requests exceeded %d in flight and were counted as errors%n",
+                        own.dropped.get(), entry.getKey().label, MAX_IN_FLIGHT);
+            }
+            writeDistribution(entry.getKey(), histogram);
+        }
+        System.out.println("\nPercentile distributions (.hgrm, milliseconds) written to " + REPORT_DIR.getAbsolutePath());
+    }
+
+    private static void writeDistribution(Endpoint endpoint, Histogram histogram) {
+        try (PrintStream out = new PrintStream(new File(REPORT_DIR, endpoint.key + ".hgrm"), "UTF-8")) {
+            histogram.outputPercentileDistribution(out, 1e6);
+        } catch (Exception ex) {
+            System.err.println("Could not write distribution for " + endpoint.label + ": " + ex);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(HIGHEST_LATENCY, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+
+        void record(long intended, boolean ok) {
+            recorder.recordValue(Math.min(HIGHEST_LATENCY, Math.max(0, System.nanoTime() - intended)));
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Call {
+        private final HttpRequest request;
+        private final Consumer<String> onSuccess;
+        private final Runnable onFailure;
+
+        Call(HttpRequest request, Consumer<String> onSuccess, Runnable onFailure) {
+            this.request = request;
+            this.onSuccess = onSuccess;
+            this.onFailure = onFailure;
+        }
+    }
+
+    private static final class OpenLoan {
+        private final long id;
+        private final String isbn;
+
+        OpenLoan(long id, String isbn) {
+            this.id = id;
+            this.isbn = isbn;
+        }
+    }
+
+    /**
+     * Shared client and bookkeeping: free isbns feed {@code POST /loans}, opened
+     * loans feed {@code PATCH /loans/{id}}, which puts the isbn back in the pool.
+     */
+    private static final class Target {
+        private final String base;
+        private final List<Book> books;
+        private final HttpClient http;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong nextIsbn = new AtomicLong();
+        private final Queue<String> freeIsbns = new ConcurrentLinkedQueue<>();
+        private final Queue<OpenLoan> openLoans = new ConcurrentLinkedQueue<>();
+
+        Target(String base, List<Book> books) {
+            this.base = base;
+            this.books = books;
+            this.http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            books.forEach(book -> freeIsbns.add(book.getIsbn()));
+        }
+
+        Call call(Endpoint endpoint) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (endpoint) {
+                case POST_BOOKS: {
+                    long n = nextIsbn.incrementAndGet();
+                    String isbn = "load-" + n;
+                    String body = "{\"title\":\"Load " + n + "\",\"author\":\"Author " + (n % 500)
+                            + "\",\"isbn\":\"" + isbn + "\"}";
+                    return new Call(json(builder("/books"), body), created -> freeIsbns.add(isbn), () -> { });
+                }
+                case GET_BOOKS: {
+                    String author = "Author+" + random.nextInt(500);
+                    return new Call(get("/books?author=" + author + "&page=0&size=10"), ignored -> { }, () -> { });
+                }
+                case POST_LOANS: {
+                    String isbn = freeIsbns.poll();
+                    if (isbn == null) {
+                        return null;
+                    }
+                    String body = "{\"isbn\":\"" + isbn + "\",\"customer\":\"Load customer\","
+                            + "\"customerEmail\":\"load@email.com\"}";
+                    return new Call(json(builder("/loans"), body),
+                            id -> openLoans.add(new OpenLoan(Long.parseLong(id.trim()), isbn)),
+                            () -> freeIsbns.add(isbn));
+                }
+                case PATCH_LOANS: {
+                    OpenLoan loan = openLoans.poll();
+                    if (loan == null) {
+                        return null;
+                    }
+                    HttpRequest patch = builder("/loans/" + loan.id)
+                            .header("Content-Type", "application/json")
+                            .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"returned\":true}"))
+                            .build();
+                    return new Call(patch, ignored -> freeIsbns.add(loan.isbn), () -> openLoans.add(loan));
+                }
+                case GET_LOANS: {
+                    Book book = books.get(random.nextInt(books.size()));
+                    return new Call(get("/loans?isbn=" + book.getIsbn() + "&customer=none&page=0&size=10"),
+                            ignored -> { }, () -> { });
+                }
+                default:
+                    throw new IllegalStateException("Unhandled endpoint " + endpoint);
+            }
+        }
+
+        private HttpRequest.Builder builder(String path) {
+            return HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30));
+        }
+
+        private HttpRequest get(String path) {
+            return builder(path).GET().build();
+        }
+
+        private static HttpRequest json(HttpRequest.Builder builder, String body) {
+            return builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    }
+}
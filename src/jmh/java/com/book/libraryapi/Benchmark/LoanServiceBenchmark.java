@@ -0,0 +1,75 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoanService.save, including the "already loaned" check, against books with a
+ * growing loan history. Each measured op checks out {@code BATCH} distinct books;
+ * the loans are returned again between iterations so every checkout succeeds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(batchSize = LoanServiceBenchmark.BATCH)
+@Measurement(batchSize = LoanServiceBenchmark.BATCH)
+public class LoanServiceBenchmark {
+
+    static final int BATCH = 500;
+
+    @Param({"1000"})
+    int catalogSize;
+
+    @Param({"0", "50"})
+    int returnedLoansPerBook;
+
+    ConfigurableApplicationContext context;
+    LoanService service;
+    List<Book> books;
+    List<Loan> open = new ArrayList<>();
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = BenchmarkApplication.start();
+        books = BenchmarkApplication.seed(context, catalogSize, returnedLoansPerBook);
+        service = context.getBean(LoanService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void returnBooks(){
+        for (Loan loan : open) {
+            loan.setReturned(true);
+            service.update(loan);
+        }
+        open.clear();
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public void save(Blackhole bh){
+        Book book = books.get(next++ % books.size());
+        Loan loan = service.save(Loan.builder()
+                .book(book)
+                .customer("Benchmark")
+                .customerEmail("benchmark@email.com")
+                .loanDate(LocalDate.now())
+                .build());
+        open.add(loan);
+        bh.consume(loan);
+    }
+}
@@ -0,0 +1,171 @@
+package com.book.libraryapi.Benchmark;
+
+import com.book.libraryapi.Config.VirtualThreads;
+import com.book.libraryapi.Model.Book;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-model load test comparing {@code application.threads.mode=platform}
+ * against {@code virtual}: {@code clients} concurrent callers hammer the read
+ * endpoints for {@code seconds} and the run reports throughput and latency
+ * percentiles per mode. Tomcat is capped at {@code tomcatThreads} workers so
+ * the platform mode is bound by its pool the way production is.
+ *
+ * <pre>
+ * mvn -Pbenchmarks -DskipTests test-compile exec:exec@thread-mode-load-test \
+ *     -Dload.args="platform,virtual 400 30 50"
+ * </pre>
+ *
+ * The virtual mode needs a Java 21+ runtime; on older JVMs the application
+ * refuses to start in that mode, so its row is skipped.
+ */
+public final class ThreadModeLoadTest {
+
+    private static final int CATALOG = 1000;
+
+    private ThreadModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.asList((args.length > 0 ? args[0] : "platform,virtual").split(","));
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int tomcatThreads = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        List<String> rows = new ArrayList<>();
+        for (String mode : modes) {
+            if ("virtual".equals(mode) && !VirtualThreads.isSupported()) {
+                System.out.printf("skipping mode virtual: this JVM (%s) has no virtual threads%n",
+                        System.getProperty("java.version"));
+                continue;
+            }
+            rows.add(run(mode, clients, seconds, tomcatThreads));
+        }
+        System.out.printf("%n%-9s %8s %8s %12s %9s %9s %9s %8s%n",
+                "mode", "clients", "seconds", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        rows.forEach(System.out::println);
+    }
+
+    private static String run(String mode, int clients, int seconds, int tomcatThreads) throws Exception {
+        ConfigurableApplicationContext context = BenchmarkApplication.start(
+                "--application.threads.mode=" + mode,
+                "--server.tomcat.threads.max=" + tomcatThreads,
+                "--server.tomcat.accept-count=" + (clients * 2));
+        try {
+            List<Book> books = BenchmarkApplication.seed(context, CATALOG, 5);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port;
+
+            ExecutorService callers = Executors.newFixedThreadPool(clients);
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            // warm up JIT and connection pools before measuring
+            drive(http, callers, base, books, clients, TimeUnit.SECONDS.toNanos(Math.max(1, seconds / 5)));
+            Result result = drive(http, callers, base, books, clients, TimeUnit.SECONDS.toNanos(seconds));
+            callers.shutdownNow();
+
+            long[] latencies = result.latencies();
+            Arrays.sort(latencies);
+            return String.format("%-9s %8d %8d %12.1f %9.2f %9.2f %9.2f %8d",
+                    mode, clients, seconds, latencies.length / (double) seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6, result.errors);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result drive(HttpClient http, ExecutorService callers, String base, List<Book> books,
+                                int clients, long durationNanos) throws Exception {
+        long deadline = System.nanoTime() + durationNanos;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> futures = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                Result own = new Result();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Book book = books.get(random.nextInt(books.size()));
+                    String path = random.nextBoolean()
+                            ? "/books/" + book.getId()
+                            : "/loans?isbn=" + book.getIsbn() + "&customer=none&page=0&size=10";
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long begin = System.nanoTime();
+                    try {
+                        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        // every request targets an existing book, so anything but 2xx (429 included) is an error
+                        own.add(System.nanoTime() - begin, status / 100 != 2);
+                    } catch (Exception ex) {
+                        own.add(System.nanoTime() - begin, true);
+                    }
+                }
+                return own;
+            }));
+        }
+        start.countDown();
+
+        Result total = new Result();
+        for (Future<Result> future : futures) {
+            total.merge(future.get());
+        }
+        return total;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Result {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long nanos, boolean error) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i], false);
+            }
+            errors += other.errors;
+        }
+
+        long[] latencies() {
+            return Arrays.copyOf(latencies, size);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.book.libraryapi.Cache;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Routing.ReadYourWrites;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicted cache in front of the book lookups. Misses are cached
+ * too, with a much shorter TTL, so repeated unknown ids/ISBNs stay off the
+ * database. Entries are copies, so callers can mutate what they get back.
+ * Concurrent misses on the same key share one load; see {@link SingleFlight}.
+ */
+@Component
+public class BookCache {
+
+    private final Cache<Long, Optional<Book>> byId;
+    private final Cache<String, Optional<Book>> byIsbn;
+    private final SingleFlight<Long, Optional<Book>> byIdLoads;
+    private final SingleFlight<String, Optional<Book>> byIsbnLoads;
+
+    public BookCache(@Value("${application.cache.books.max-size:10000}") long maxSize,
+                     @Value("${application.cache.books.ttl-ms:600000}") long ttlMs,
+                     @Value("${application.cache.books.negative-ttl-ms:5000}") long negativeTtlMs,
+                     @Value("${application.cache.books.coalesce-timeout-ms:5000}") long coalesceTimeoutMs,
+                     MeterRegistry registry) {
+        this.byId = build(maxSize, ttlMs, negativeTtlMs, registry, "books.byId");
+        this.byIsbn = build(maxSize, ttlMs, negativeTtlMs, registry, "books.byIsbn");
+        this.byIdLoads = new SingleFlight<>("books.byId", coalesceTimeoutMs, registry);
+        this.byIsbnLoads = new SingleFlight<>("books.byIsbn", coalesceTimeoutMs, registry);
+    }
+
+    public Optional<Book> getById(Long id, Function<Long, Optional<Book>> loader) {
+        return get(byId, byIdLoads, id, loader);
+    }
+
+    public Optional<Book> getByIsbn(String isbn, Function<String, Optional<Book>> loader) {
+        return get(byIsbn, byIsbnLoads, isbn, loader);
+    }
+
+    /**
+     * Write-through after a successful save/update: drop anything cached under
+     * the book's previous ISBN and store the new state under id and ISBN.
+     */
+    public void put(Book book) {
+        invalidate(book);
+        Optional<Book> value = copy(Optional.of(book));
+        byId.put(book.getId(), value);
+        byIsbn.put(book.getIsbn(), value);
+    }
+
+    public void invalidate(Book book) {
+        if (book.getId() != null) {
+            Optional<Book> previous = byId.getIfPresent(book.getId());
+            if (previous != null) {
+                previous.map(Book::getIsbn).ifPresent(byIsbn::invalidate);
+            }
+            byId.invalidate(book.getId());
+        }
+        if (book.getIsbn() != null) {
+            byIsbn.invalidate(book.getIsbn());
+        }
+    }
+
+    /**
+     * Hits never wait. On a miss only one caller per key runs the loader; the
+     * others wait for it with a timeout, which Caffeine's own per-key load lacks.
+     * The first peek is quiet so each miss is recorded once, by the load.
+     * A caller pinned to the primary ({@link ReadYourWrites}) must not be handed
+     * a load that may have gone to a replica, so its misses load on their own
+     * and are not stored.
+     */
+    private static <K> Optional<Book> get(Cache<K, Optional<Book>> cache, SingleFlight<K, Optional<Book>> loads,
+                                          K key, Function<K, Optional<Book>> loader) {
+        Optional<Book> cached = cache.policy().getIfPresentQuietly(key) == null ? null : cache.getIfPresent(key);
+        if (cached == null) {
+            if (ReadYourWrites.isPinned()) {
+                return copy(loader.apply(key));
+            }
+            cached = loads.execute(key, () -> cache.get(key, k -> copy(loader.apply(k))));
+        }
+        return copy(cached);
+    }
+
+    private static Optional<Book> copy(Optional<Book> book) {
+        return book.map(BookCache::copy);
+    }
+
+    /**
+     * Detached copy without the lazy loans, safe to hand to another thread.
+     */
+    public static Book copy(Book book) {
+        return book.toBuilder().loans(null).build();
+    }
+
+    private static <K, V> Cache<K, V> build(long maxSize, long ttlMs, long negativeTtlMs,
+                                            MeterRegistry registry, String name) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<K, V>() {
+                    @Override
+                    public long expireAfterCreate(K key, V value, long currentTime) {
+                        long ttl = isNegative(value) ? negativeTtlMs : ttlMs;
+                        return TimeUnit.MILLISECONDS.toNanos(ttl);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    private static boolean isNegative(Object value) {
+        return Optional.empty().equals(value);
+    }
+}
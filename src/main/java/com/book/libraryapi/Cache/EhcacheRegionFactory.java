@@ -0,0 +1,43 @@
+package com.book.libraryapi.Cache;
+
+import org.ehcache.config.Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Second-level cache regions backed by Ehcache, configured from the file in
+ * {@code hibernate.javax.cache.uri}. JCache hands out one cache manager per
+ * URI and class loader, so every session factory in the JVM (one per test
+ * context) would share and corrupt the same regions; each one gets its own
+ * manager here instead, closed with the factory.
+ */
+public class EhcacheRegionFactory extends JCacheRegionFactory {
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map properties) {
+        CachingProvider provider = getCachingProvider(properties);
+        if (!(provider instanceof EhcacheCachingProvider)) {
+            return super.resolveCacheManager(settings, properties);
+        }
+        URI uri = getUri(settings, properties);
+        ClassLoader classLoader = getClassLoader(provider);
+        Configuration configuration;
+        try {
+            configuration = new XmlConfiguration(uri.toURL(), classLoader);
+        } catch (MalformedURLException ex) {
+            throw new CacheException("Invalid cache configuration URI " + uri, ex);
+        }
+        URI unique = URI.create("urn:library-api:hibernate:" + UUID.randomUUID());
+        return ((EhcacheCachingProvider) provider).getCacheManager(unique, configuration);
+    }
+}
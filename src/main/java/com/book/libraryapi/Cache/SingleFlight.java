@@ -0,0 +1,85 @@
+package com.book.libraryapi.Cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: while a call for a key is in flight, callers asking for
+ * the same key wait for it and share its result or its exception instead of
+ * issuing their own. A caller that waits longer than the timeout stops waiting
+ * and makes the call itself, so one stuck call cannot hold every caller.
+ * Nothing is kept once the call returns; this is not a cache.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, long timeoutMs, MeterRegistry registry) {
+        this.timeoutMs = timeoutMs;
+        this.coalesced = Counter.builder("lookups.coalesced")
+                .description("Calls answered by a concurrent identical call already in flight")
+                .tag("lookup", name)
+                .register(registry);
+        this.timeouts = Counter.builder("lookups.coalesce.timeouts")
+                .description("Coalesced calls that stopped waiting and ran on their own")
+                .tag("lookup", name)
+                .register(registry);
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            return await(leader, call);
+        }
+        try {
+            V value = call.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private V await(CompletableFuture<V> leader, Supplier<V> call) {
+        try {
+            V value = leader.get(timeoutMs, TimeUnit.MILLISECONDS);
+            coalesced.increment();
+            return value;
+        } catch (ExecutionException ex) {
+            coalesced.increment();
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException ex) {
+            timeouts.increment();
+            return call.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return call.get();
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.book.libraryapi.Config;
+
+import com.book.libraryapi.Limiter.AimdLimiter;
+import com.book.libraryapi.Limiter.ConcurrencyLimitFilter;
+import com.book.libraryapi.Limiter.RepositoryLatency;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Adaptive concurrency limits for the API, enabled with {@code application.limiter.enabled}.
+ * Reads and writes each get an {@link AimdLimiter} driven by the slowest
+ * repository call of each request; {@code http.concurrency.*} meters expose the limits,
+ * in-flight counts and rejections per limiter.
+ */
+@Configuration
+@ConditionalOnProperty(value = "application.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryLatencyPostProcessor() {
+        RepositoryLatency listener = new RepositoryLatency();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean)
+                            .addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(listener));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public AimdLimiter readLimiter(@Value("${application.limiter.read.initial-limit:40}") int initialLimit,
+                                   @Value("${application.limiter.read.min-limit:4}") int minLimit,
+                                   @Value("${application.limiter.read.max-limit:400}") int maxLimit,
+                                   @Value("${application.limiter.read.latency-threshold-ms:50}") long thresholdMs,
+                                   @Value("${application.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                   MeterRegistry registry) {
+        return new AimdLimiter("read", initialLimit, minLimit, maxLimit, thresholdMs, backoffRatio, registry);
+    }
+
+    @Bean
+    public AimdLimiter writeLimiter(@Value("${application.limiter.write.initial-limit:20}") int initialLimit,
+                                    @Value("${application.limiter.write.min-limit:2}") int minLimit,
+                                    @Value("${application.limiter.write.max-limit:200}") int maxLimit,
+                                    @Value("${application.limiter.write.latency-threshold-ms:100}") long thresholdMs,
+                                    @Value("${application.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                    MeterRegistry registry) {
+        return new AimdLimiter("write", initialLimit, minLimit, maxLimit, thresholdMs, backoffRatio, registry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            AimdLimiter readLimiter, AimdLimiter writeLimiter,
+            @Value("${application.limiter.retry-after-seconds:1}") long retryAfterSeconds) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(readLimiter, writeLimiter, retryAfterSeconds));
+        registration.addUrlPatterns("/books/*", "/loans/*", "/books", "/loans");
+        // after the metrics filter, so rejections still show up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,102 @@
+package com.book.libraryapi.Config;
+
+import com.book.libraryapi.Routing.ReadWriteRoutingDataSource;
+import com.book.libraryapi.Routing.ReadYourWritesFilter;
+import com.book.libraryapi.Routing.ReplicaCacheModeJpaDialect;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Primary/replica routing, enabled with {@code application.datasource.routing.enabled}.
+ * The primary comes from the regular {@code spring.datasource.*} settings and
+ * each URL in {@code application.datasource.replicas} becomes a replica pool,
+ * logging in with the primary's credentials unless replica ones are given.
+ * Read-only transactions go to the replicas. Any other connection goes to the
+ * primary. Reads served by a replica never fill the second-level and query
+ * caches (see {@link ReplicaCacheModeJpaDialect}), and {@code BookCache}
+ * loads its misses from the primary, so replica lag cannot outlive a request.
+ */
+@Configuration
+@ConditionalOnProperty(value = "application.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${application.datasource.replicas:}") List<String> replicaUrls,
+                                 @Value("${application.datasource.replica-username:}") String username,
+                                 @Value("${application.datasource.replica-password:}") String password) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.trim().isEmpty()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return ReadWriteRoutingDataSource.create(primary, replicas);
+    }
+
+    /**
+     * Installs {@link ReplicaCacheModeJpaDialect} on the entity manager factory,
+     * where the JPA transaction manager picks its dialect up from. Not needed
+     * when no replica is configured and every read stays on the primary.
+     */
+    @Bean
+    public static BeanPostProcessor replicaCacheModeDialect(
+            @Value("${application.datasource.replicas:}") List<String> replicaUrls) {
+        boolean replicas = replicaUrls.stream().anyMatch(url -> !url.trim().isEmpty());
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (replicas && bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new ReplicaCacheModeJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Spring holds the JDBC connection for the whole open-in-view session by
+     * default, which would pin a request to whichever pool served its first
+     * transaction. Releasing it after each transaction lets every transaction
+     * be routed on its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${application.datasource.read-your-writes-ms:0}") long windowMs) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(windowMs));
+        registration.setEnabled(windowMs > 0);
+        return registration;
+    }
+}
@@ -0,0 +1,26 @@
+package com.book.libraryapi.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class MailOutboxConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor mailOutboxExecutor(@Value("${application.mail.outbox.pool-size:4}") int poolSize,
+                                                     @Value("${application.threads.mode:platform}") String threadsMode){
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        if ("virtual".equals(threadsMode)) {
+            // the pool size still bounds concurrent SMTP sessions
+            executor.setThreadFactory(VirtualThreads.requireThreadFactory("mail-outbox-vt-"));
+        }
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("mail-outbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,55 @@
+package com.book.libraryapi.Config;
+
+import com.book.libraryapi.Profiling.SqlProfilingFilter;
+import com.book.libraryapi.Profiling.SqlProfilingInterceptor;
+import com.book.libraryapi.Profiling.SqlProfilingListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Opt-in per-request SQL profiling: the data source is wrapped with a
+ * datasource-proxy listener, Hibernate entity loads are counted by an
+ * interceptor, and {@link SqlProfilingFilter} reports both per request.
+ */
+@Configuration
+@ConditionalOnProperty(value = "application.profiling.sql.enabled", havingValue = "true")
+public class SqlProfilingConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlProfilingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(new SqlProfilingListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlProfilingInterceptorCustomizer() {
+        return properties -> properties.put("hibernate.session_factory.interceptor", new SqlProfilingInterceptor());
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlProfilingFilter> sqlProfilingFilter(
+            @Value("${application.profiling.sql.slow-request-ms:500}") long slowRequestMs) {
+        FilterRegistrationBean<SqlProfilingFilter> registration =
+                new FilterRegistrationBean<>(new SqlProfilingFilter(slowRequestMs));
+        registration.addUrlPatterns("/books/*", "/loans/*", "/books", "/loans");
+        return registration;
+    }
+}
@@ -0,0 +1,33 @@
+package com.book.libraryapi.Config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+
+/**
+ * The {@code fast-startup} profile turns on {@code spring.main.lazy-initialization}
+ * so beans off the request path are only built when first used. Two kinds of
+ * beans must stay eager: controllers, so the first request does not pay for the
+ * service and repository graph, and beans with {@code @Scheduled} methods, which
+ * are only registered with the scheduler once instantiated.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter requestPathAndScheduledBeansExcludeFilter() {
+        return (beanName, definition, beanType) ->
+                AnnotatedElementUtils.hasAnnotation(beanType, Controller.class) || hasScheduledMethods(beanType);
+    }
+
+    static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                        AnnotatedElementUtils.hasAnnotation(method, Scheduled.class) ? Boolean.TRUE : null)
+                .isEmpty();
+    }
+}
@@ -0,0 +1,37 @@
+package com.book.libraryapi.Config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+
+import java.util.concurrent.Executors;
+
+/**
+ * {@code application.threads.mode=virtual} serves requests and runs the
+ * scheduled jobs on virtual threads (Java 21+). The default, {@code platform},
+ * keeps Tomcat's worker pool and Spring's scheduler thread. The build targets
+ * Java 11, so the virtual mode needs a newer runtime; on one without virtual
+ * threads startup fails rather than silently running the platform mode.
+ */
+@Configuration
+@ConditionalOnProperty(value = "application.threads.mode", havingValue = "virtual")
+public class ThreadingConfig {
+
+    public ThreadingConfig() {
+        VirtualThreads.requireSupported();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.requirePerTaskExecutor("http-vt-"));
+    }
+
+    @Bean
+    public SchedulingConfigurer virtualThreadSchedulingConfigurer() {
+        // same single worker as the default scheduler, but that worker is a virtual thread
+        return registrar -> registrar.setScheduler(
+                Executors.newScheduledThreadPool(1, VirtualThreads.requireThreadFactory("scheduling-vt-")));
+    }
+}
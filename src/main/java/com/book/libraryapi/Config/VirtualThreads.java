@@ -0,0 +1,70 @@
+package com.book.libraryapi.Config;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Looks up the virtual thread API by reflection, so the application still
+ * compiles for Java 11. Callers that were asked for virtual threads use the
+ * {@code require*} methods, which fail on a runtime without them instead of
+ * quietly running on platform threads.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return threadFactory("probe-").isPresent();
+    }
+
+    public static void requireSupported() {
+        if (!isSupported()) {
+            throw unsupported();
+        }
+    }
+
+    /**
+     * A factory for virtual threads named {@code prefix0}, {@code prefix1}, ...
+     */
+    public static Optional<ThreadFactory> threadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return Optional.of((ThreadFactory) builderType.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * An executor starting one virtual thread per task.
+     */
+    public static Optional<ExecutorService> newPerTaskExecutor(String prefix) {
+        return threadFactory(prefix).map(factory -> {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, factory);
+            } catch (ReflectiveOperationException ex) {
+                return null;
+            }
+        });
+    }
+
+    public static ThreadFactory requireThreadFactory(String prefix) {
+        return threadFactory(prefix).orElseThrow(VirtualThreads::unsupported);
+    }
+
+    public static ExecutorService requirePerTaskExecutor(String prefix) {
+        return newPerTaskExecutor(prefix).orElseThrow(VirtualThreads::unsupported);
+    }
+
+    private static IllegalStateException unsupported() {
+        return new IllegalStateException("application.threads.mode=virtual needs a Java 21+ runtime, this JVM is "
+                + System.getProperty("java.version"));
+    }
+}
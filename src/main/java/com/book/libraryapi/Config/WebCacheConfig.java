@@ -0,0 +1,33 @@
+package com.book.libraryapi.Config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Content-hash ETags for the book search and book loans pages. These still run
+ * the query, but an unchanged page goes back as an empty 304. Single books
+ * carry a version-based ETag set by the controller instead.
+ */
+@Configuration
+public class WebCacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> pageEtagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                boolean page = path.equals("/books") || (path.startsWith("/books/") && path.endsWith("/loans"));
+                return !HttpMethod.GET.matches(request.getMethod()) || !page;
+            }
+        };
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/books", "/books/*");
+        return registration;
+    }
+}
@@ -2,21 +2,36 @@ package com.book.libraryapi.Controller;
 
 import com.book.libraryapi.Controller.Exceptions.ApiErros;
 import com.book.libraryapi.Exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    static final String ERRORS_METRIC = "api.errors";
+
+    private final MeterRegistry registry;
+
+    public ApplicationControllerAdvice(ObjectProvider<MeterRegistry> registry) {
+        // web slice tests run without the metrics auto-configuration
+        this.registry = registry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErros handleValidationExceptions(MethodArgumentNotValidException exception){
+        count("validation", HttpStatus.BAD_REQUEST);
         BindingResult bindingResult = exception.getBindingResult();
         return new ApiErros(bindingResult);
     }
@@ -24,11 +39,29 @@ public class ApplicationControllerAdvice {
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErros handleBusinessException(BusinessException exception){
+        count("business", HttpStatus.BAD_REQUEST);
         return new ApiErros(exception);
     }
 
+    /**
+     * 412 only when the write was conditioned on the client's {@code If-Match}
+     * version; any other lost update is a plain 409 Conflict.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErros> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException exception,
+                                                                   WebRequest request){
+        HttpStatus status = ETags.isVersionExpected(request) ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+        count("conflict", status);
+        return new ResponseEntity<>(new ApiErros(new BusinessException("Resource was modified by another request")), status);
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException exception){
+        count(exception.getStatus() == HttpStatus.NOT_FOUND ? "not_found" : "status", exception.getStatus());
         return new ResponseEntity(new ApiErros(exception), exception.getStatus());
     }
+
+    private void count(String type, HttpStatus status){
+        registry.counter(ERRORS_METRIC, "type", type, "status", String.valueOf(status.value())).increment();
+    }
 }
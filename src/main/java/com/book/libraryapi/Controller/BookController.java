@@ -1,28 +1,44 @@
 package com.book.libraryapi.Controller;
 
 import com.book.libraryapi.Controller.Exceptions.ApiErros;
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Dto.CursorPageDTO;
 import com.book.libraryapi.Dto.LoanDto;
 import com.book.libraryapi.Exception.BusinessException;
+import com.book.libraryapi.Mapper.DtoMapper;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
 import com.book.libraryapi.Service.BookService;
 import com.book.libraryapi.Service.LoanService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -33,40 +49,132 @@ import java.util.stream.Collectors;
 @Api("Book API")
 public class BookController {
 
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final BookService service;
-    private final ModelMapper modelMapper;
+    private final DtoMapper mapper;
     private final LoanService loanService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("Create a book")
     public BookDTO createBook(@RequestBody @Valid BookDTO dto){
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = mapper.toEntity(dto);
         entity = service.save(entity);
-        return modelMapper.map(entity, BookDTO.class);
+        return mapper.toDto(entity);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Create books in bulk from a JSON array")
+    public List<BatchItemResultDTO> createBooks(@RequestBody List<BookDTO> dtos){
+        return saveBatch(dtos);
+    }
+
+    @PostMapping(value = "/batch", consumes = NDJSON_VALUE)
+    @ApiOperation("Create books in bulk from newline-delimited JSON")
+    public List<BatchItemResultDTO> createBooksNdjson(InputStream body){
+        List<BookDTO> dtos = new ArrayList<>();
+        try (MappingIterator<BookDTO> lines = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                dtos.add(lines.nextValue());
+            }
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid NDJSON body", ex);
+        }
+        return saveBatch(dtos);
+    }
+
+    private List<BatchItemResultDTO> saveBatch(List<BookDTO> dtos){
+        BatchItemResultDTO[] results = new BatchItemResultDTO[dtos.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Book> valid = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            BookDTO dto = dtos.get(i);
+            List<String> erros = dto == null
+                    ? Collections.singletonList("must not be null")
+                    : validator.validate(dto).stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.toList());
+            if (erros.isEmpty()) {
+                validIndexes.add(i);
+                valid.add(mapper.toEntity(dto));
+            } else {
+                results[i] = BatchItemResultDTO.builder()
+                        .index(i)
+                        .status(BatchItemResultDTO.Status.INVALID)
+                        .isbn(dto == null ? null : dto.getIsbn())
+                        .erros(erros)
+                        .build();
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            for (BatchItemResultDTO result : service.saveAll(valid)) {
+                int index = validIndexes.get(result.getIndex());
+                result.setIndex(index);
+                results[index] = result;
+            }
+        }
+        return Arrays.asList(results);
     }
 
     @GetMapping("/{id}")
     @ApiOperation("Obtains a book details by id")
-    public BookDTO getBook(@PathVariable("id") Long id){
-        return service.getById(id)
-                .map(bk -> modelMapper.map(bk, BookDTO.class))
+    public ResponseEntity<BookDTO> getBook(@PathVariable("id") Long id, WebRequest request){
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            // revalidation only needs the version: no entity load, mapping or serialization
+            Long version = service.getVersion(id)
+                    .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (request.checkNotModified(ETags.of(version))) {
+                return null;
+            }
+        }
+        Book book = service.getById(id)
                 .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok()
+                .eTag(ETags.of(book.getVersion()))
+                .body(mapper.toDto(book));
     }
 
     @GetMapping
     @ApiOperation("Obtains all book by params")
     public Page<BookDTO> findBookAndQuery(BookDTO dto, Pageable pgRequest){
-        Book filter = modelMapper.map(dto, Book.class);
+        Book filter = mapper.toEntity(dto);
         Page<Book> result = service.find(filter, pgRequest);
 
         List<BookDTO> list = result.getContent().stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(entity -> mapper.toDto(entity))
                 .collect(Collectors.toList());
 
         return new PageImpl<BookDTO>(list, pgRequest, result.getTotalElements());
     }
 
+    @GetMapping(params = "after")
+    @ApiOperation("Obtains books by params using cursor pagination")
+    public CursorPageDTO<BookDTO> findBookAfter(BookDTO dto,
+                                                @RequestParam("after") String after,
+                                                @RequestParam(value = "size", defaultValue = "20") int size){
+        Book filter = mapper.toEntity(dto);
+        Slice<Book> result = service.findAfter(filter, CursorToken.decode(after), CursorToken.size(size));
+        return CursorToken.page(result, Book::getId, mapper::toDto);
+    }
+
+    @GetMapping("/export")
+    @ApiOperation("Streams all books matching the params as NDJSON or CSV")
+    public void exportBooks(BookDTO dto,
+                            @RequestParam(value = "format", defaultValue = ExportWriter.NDJSON) String format,
+                            HttpServletResponse response) throws IOException {
+        try (ExportWriter<Book> export = ExportWriter.open(response, format, "books", objectMapper, mapper::toDto,
+                new String[]{"id", "title", "author", "isbn", "loanPeriodDays"},
+                book -> new Object[]{book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                        book.getLoanPeriodDays()})) {
+            service.exportAll(mapper.toEntity(dto), export::write);
+        }
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @ApiOperation("Delete a book")
@@ -78,30 +186,45 @@ public class BookController {
 
     @PutMapping("/{id}")
     @ApiOperation("Upgrade a book")
-    public BookDTO updateBook(@PathVariable("id") Long id, @RequestBody @Valid BookDTO bookUpdateBody){
+    public ResponseEntity<BookDTO> updateBook(@PathVariable("id") Long id,
+                                              @RequestBody @Valid BookDTO bookUpdateBody,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              WebRequest request){
         return service.getById(id)
             .map(book -> {
+                if (ifMatch != null) {
+                    if (!ETags.matches(ifMatch, book.getVersion())) {
+                        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+                    }
+                    // pin the expected version so a concurrent write fails the update itself
+                    Long expected = ETags.version(ifMatch);
+                    if (expected != null) {
+                        book.setVersion(expected);
+                        ETags.expectVersion(request);
+                    }
+                }
                 book.setAuthor(bookUpdateBody.getAuthor());
                 book.setTitle(bookUpdateBody.getTitle());
+                book.setLoanPeriodDays(bookUpdateBody.getLoanPeriodDays());
 
                 book = service.update(book);
-                return modelMapper.map(book, BookDTO.class);
+                return ResponseEntity.ok()
+                        .eTag(ETags.of(book.getVersion()))
+                        .body(mapper.toDto(book));
         }).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping("{id}/loans")
     @ApiOperation("Obtains loans by id book")
-    public Page<LoanDto> LoansByBook(@PathVariable Long id, Pageable pageable){
+    public Page<LoanDto> LoansByBook(@PathVariable Long id,
+                                     @RequestParam(value = "includeArchive", defaultValue = "false") boolean includeArchive,
+                                     Pageable pageable){
         Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
-
-        List<LoanDto> list = result.getContent().stream().map( loan -> {
-                   Book bk = loan.getBook();
-                   BookDTO bookDTO = modelMapper.map(bk, BookDTO.class);
-                   LoanDto loanDTO = modelMapper.map(loan, LoanDto.class);
-                   loanDTO.setBookDTO(bookDTO);
-                   return loanDTO;
-        }).collect(Collectors.toList());
+        Page<Loan> result = loanService.getLoansByBook(book, pageable, includeArchive);
+
+        List<LoanDto> list = result.getContent().stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
         return new PageImpl<LoanDto>(list, pageable, result.getTotalElements());
     }
 
@@ -0,0 +1,65 @@
+package com.book.libraryapi.Controller;
+
+import com.book.libraryapi.Dto.CursorPageDTO;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque "after" tokens for the seek-paginated list endpoints. The token only
+ * wraps the last id of the previous page; an empty token starts from the beginning.
+ */
+public final class CursorToken {
+
+    static final int MAX_SIZE = 2000;
+    private static final String PREFIX = "id:";
+
+    private CursorToken() {
+    }
+
+    public static Long decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(raw);
+            }
+            return Long.valueOf(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int size(int requested) {
+        if (requested < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page size");
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    public static <E, D> CursorPageDTO<D> page(Slice<E> slice, Function<E, Long> id, Function<E, D> mapper) {
+        List<E> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+                ? encode(id.apply(content.get(content.size() - 1)))
+                : null;
+        return CursorPageDTO.<D>builder()
+                .content(content.stream().map(mapper).collect(Collectors.toList()))
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .next(next)
+                .build();
+    }
+}
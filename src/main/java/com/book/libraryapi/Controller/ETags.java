@@ -0,0 +1,62 @@
+package com.book.libraryapi.Controller;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong entity tags built from the JPA {@code @Version} of a resource.
+ */
+public final class ETags {
+
+    private static final String EXPECTED_VERSION = ETags.class.getName() + ".EXPECTED_VERSION";
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * Strong comparison against an {@code If-Match} header: {@code *} matches
+     * any current version, weak tags never match.
+     */
+    public static boolean matches(String ifMatch, Long version) {
+        String current = of(version);
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version carried by an {@code If-Match} header, or null for {@code *}
+     * or a list of tags.
+     */
+    public static Long version(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.indexOf(',') >= 0 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Records that the write in this request is conditioned on the version
+     * the client sent in {@code If-Match}, so losing it is a failed precondition.
+     */
+    public static void expectVersion(WebRequest request) {
+        request.setAttribute(EXPECTED_VERSION, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    public static boolean isVersionExpected(WebRequest request) {
+        return request.getAttribute(EXPECTED_VERSION, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
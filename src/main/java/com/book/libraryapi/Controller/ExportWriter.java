@@ -0,0 +1,108 @@
+package com.book.libraryapi.Controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Writes export rows straight to the response as NDJSON (one JSON document
+ * per line) or CSV, so nothing but the current row is held in memory.
+ */
+public final class ExportWriter<T> implements AutoCloseable {
+
+    static final String NDJSON = "ndjson";
+    static final String CSV = "csv";
+
+    private final Writer writer;
+    private final ObjectWriter json;
+    private final Function<T, Object> jsonView;
+    private final Function<T, Object[]> csvRow;
+
+    private ExportWriter(Writer writer, ObjectWriter json, Function<T, Object> jsonView, Function<T, Object[]> csvRow) {
+        this.writer = writer;
+        this.json = json;
+        this.jsonView = jsonView;
+        this.csvRow = csvRow;
+    }
+
+    /**
+     * @param jsonView converts a row to the object serialized in NDJSON mode
+     * @param csvHeader column names written as the first CSV line
+     * @param csvRow converts a row to the CSV columns, in header order
+     */
+    public static <T> ExportWriter<T> open(HttpServletResponse response, String format, String filename,
+                                           ObjectMapper objectMapper, Function<T, Object> jsonView,
+                                           String[] csvHeader, Function<T, Object[]> csvRow) throws IOException {
+        boolean csv;
+        if (CSV.equalsIgnoreCase(format)) {
+            csv = true;
+        } else if (NDJSON.equalsIgnoreCase(format)) {
+            csv = false;
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format");
+        }
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(csv ? "text/csv" : BookController.NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + filename + (csv ? ".csv" : ".ndjson") + "\"");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+
+        if (csv) {
+            ExportWriter<T> export = new ExportWriter<>(writer, null, null, csvRow);
+            export.writeCsvLine(csvHeader);
+            return export;
+        }
+        return new ExportWriter<>(writer, objectMapper.writer(), jsonView, null);
+    }
+
+    public void write(T row) {
+        try {
+            if (json != null) {
+                writer.write(json.writeValueAsString(jsonView.apply(row)));
+                writer.write('\n');
+            } else {
+                writeCsvLine(csvRow.apply(row));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeCsvLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
@@ -1,25 +1,36 @@
 package com.book.libraryapi.Controller;
 
-import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Dto.BatchItemResultDTO;
+import com.book.libraryapi.Dto.CursorPageDTO;
 import com.book.libraryapi.Dto.LoanDto;
 import com.book.libraryapi.Dto.LoanFilterDTO;
 import com.book.libraryapi.Dto.ReturnedLoanDTO;
+import com.book.libraryapi.Mapper.DtoMapper;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
 import com.book.libraryapi.Service.BookService;
 import com.book.libraryapi.Service.LoanService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -29,7 +40,8 @@ public class LoanController {
 
     private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final DtoMapper mapper;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -41,6 +53,7 @@ public class LoanController {
         Loan entity = Loan.builder()
                 .book(book)
                 .customer(loanDto.getCustomer())
+                .customerEmail(loanDto.getCustomerEmail())
                 .loanDate(LocalDate.now())
                 .build();
 
@@ -50,20 +63,84 @@ public class LoanController {
 
     }
 
+    @PostMapping("/batch")
+    public List<BatchItemResultDTO> createBatch(@RequestBody List<LoanDto> loanDtos){
+        Set<String> isbns = loanDtos.stream()
+                .map(LoanDto::getIsbn)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Book> books = bookService.getBooksByIsbn(isbns);
+
+        BatchItemResultDTO[] results = new BatchItemResultDTO[loanDtos.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < loanDtos.size(); i++) {
+            LoanDto loanDto = loanDtos.get(i);
+            Book book = loanDto.getIsbn() == null ? null : books.get(loanDto.getIsbn());
+            if (book == null) {
+                results[i] = BatchItemResultDTO.builder()
+                        .index(i)
+                        .status(BatchItemResultDTO.Status.NOT_FOUND)
+                        .isbn(loanDto.getIsbn())
+                        .erros(Collections.singletonList("Book not found for passed isbn"))
+                        .build();
+                continue;
+            }
+            indexes.add(i);
+            loans.add(Loan.builder()
+                    .book(book)
+                    .customer(loanDto.getCustomer())
+                    .customerEmail(loanDto.getCustomerEmail())
+                    .loanDate(today)
+                    .build());
+        }
+
+        if (!loans.isEmpty()) {
+            for (BatchItemResultDTO result : service.saveAll(loans)) {
+                int index = indexes.get(result.getIndex());
+                result.setIndex(index);
+                results[index] = result;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
     @GetMapping
     public Page<LoanDto> get(LoanFilterDTO dto, Pageable pgRequest){
         Page<Loan> res = service.find(dto, pgRequest);
 
-        List<LoanDto> result = res.getContent().stream().map(l -> {
-            Book book = l.getBook();
-            BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-            LoanDto loanDto = modelMapper.map(l, LoanDto.class);
-            loanDto.setBookDTO(bookDTO);
-            return loanDto;
-        }).collect(Collectors.toList());
+        List<LoanDto> result = res.getContent().stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
         return new PageImpl<LoanDto>(result, pgRequest, res.getTotalElements());
     }
 
+    @GetMapping(params = "after")
+    public CursorPageDTO<LoanDto> getAfter(LoanFilterDTO dto,
+                                           @RequestParam("after") String after,
+                                           @RequestParam(value = "size", defaultValue = "20") int size){
+        Slice<Loan> res = service.findAfter(dto, CursorToken.decode(after), CursorToken.size(size));
+        return CursorToken.page(res, Loan::getId, mapper::toDto);
+    }
+
+    @GetMapping("/export")
+    public void export(LoanFilterDTO dto,
+                       @RequestParam(value = "format", defaultValue = ExportWriter.NDJSON) String format,
+                       HttpServletResponse response) throws IOException {
+        try (ExportWriter<Loan> export = ExportWriter.open(response, format, "loans", objectMapper, mapper::toDto,
+                new String[]{"id", "customer", "customerEmail", "loanDate", "dueDate", "status", "returned", "isbn"},
+                loan -> new Object[]{loan.getId(), loan.getCustomer(), loan.getCustomerEmail(), loan.getLoanDate(),
+                        loan.getDueDate(), loan.getStatus(), loan.getReturned(), loan.getBook().getIsbn()})) {
+            service.exportAll(dto, export::write);
+        }
+    }
+
+    @PatchMapping("/batch")
+    public List<BatchItemResultDTO> returnBatch(@RequestBody List<ReturnedLoanDTO> dtos){
+        return service.returnAll(dtos);
+    }
+
     @PatchMapping("/{id}")
     public void returnBook(@PathVariable Long id,
                            @RequestBody ReturnedLoanDTO dto){
@@ -72,7 +149,6 @@ public class LoanController {
                 .orElseThrow(
                         () -> new ResponseStatusException(HttpStatus.NOT_FOUND)
                 );
-        loan.setReturned(dto.getReturned());
-        service.update(loan);
+        service.update(mapper.applyReturn(dto, loan));
     }
 }
@@ -0,0 +1,64 @@
+package com.book.libraryapi.Controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import springfox.documentation.swagger.web.ApiKeyVehicle;
+import springfox.documentation.swagger.web.SecurityConfiguration;
+import springfox.documentation.swagger.web.SwaggerResource;
+import springfox.documentation.swagger.web.UiConfiguration;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serves the API docs when springfox does not scan on boot
+ * ({@code application.docs.enabled=false}, the {@code fast-startup} profile):
+ * {@code /v2/api-docs} returns the spec the {@code appcds} build generated, and
+ * the endpoints swagger-ui.html reads its settings from answer with the defaults
+ * springfox would use, so the UI keeps working.
+ */
+@RestController
+@ConditionalOnProperty(value = "application.docs.enabled", havingValue = "false")
+public class StaticApiDocsController {
+
+    private static final String API_DOCS_PATH = "/v2/api-docs";
+
+    private final Resource spec;
+
+    public StaticApiDocsController(@Value("${application.docs.spec-location:file:target/app/api-docs.json}") Resource spec) {
+        this.spec = spec;
+    }
+
+    @GetMapping(value = API_DOCS_PATH, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Resource apiDocs() {
+        if (!spec.exists()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "API docs were not generated");
+        }
+        return spec;
+    }
+
+    @GetMapping("/swagger-resources")
+    public List<SwaggerResource> swaggerResources() {
+        SwaggerResource resource = new SwaggerResource();
+        resource.setName("default");
+        resource.setLocation(API_DOCS_PATH);
+        resource.setSwaggerVersion("2.0");
+        return Collections.singletonList(resource);
+    }
+
+    @GetMapping("/configuration/ui")
+    public UiConfiguration uiConfiguration() {
+        return new UiConfiguration(null);
+    }
+
+    @GetMapping("/configuration/security")
+    public SecurityConfiguration securityConfiguration() {
+        return new SecurityConfiguration(null, null, null, null, null, ApiKeyVehicle.HEADER, "api_key", ",");
+    }
+}
@@ -0,0 +1,30 @@
+package com.book.libraryapi.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDTO {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DUPLICATE,
+        INVALID,
+        NOT_FOUND,
+        FAILED
+    }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private String isbn;
+    private List<String> erros;
+}
@@ -3,6 +3,7 @@ package com.book.libraryapi.Dto;
 import lombok.*;
 
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
 
 @Data
 @Builder
@@ -16,4 +17,6 @@ public class BookDTO {
     private String author;
     @NotEmpty
     private String isbn;
+    @Positive
+    private Integer loanPeriodDays;
 }
@@ -5,7 +5,10 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.book.libraryapi.Model.LoanStatus;
+
 import javax.validation.constraints.NotEmpty;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -20,4 +23,6 @@ public class LoanDto {
     private BookDTO bookDTO;
     @NotEmpty
     private String customerEmail;
+    private LocalDate dueDate;
+    private LoanStatus status;
 }
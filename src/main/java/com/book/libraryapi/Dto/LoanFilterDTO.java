@@ -12,4 +12,8 @@ import lombok.NoArgsConstructor;
 public class LoanFilterDTO {
     private String isbn;
     private String customer;
+    /**
+     * Also search the loan archive; archived loans come after the hot ones.
+     */
+    private boolean includeArchive;
 }
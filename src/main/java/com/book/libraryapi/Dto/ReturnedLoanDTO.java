@@ -10,5 +10,6 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Data
 public class ReturnedLoanDTO {
+    private Long id;
     private Boolean returned;
 }
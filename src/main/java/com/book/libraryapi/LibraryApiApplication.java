@@ -1,7 +1,6 @@
 package com.book.libraryapi;
 
-import com.book.libraryapi.Service.EmailService;
-import org.modelmapper.ModelMapper;
+import com.book.libraryapi.Mapper.DtoMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -16,8 +15,8 @@ import java.util.List;
 @EnableScheduling
 public class LibraryApiApplication {
 	@Bean
-	public ModelMapper modelMapper(){
-		return new ModelMapper();
+	public DtoMapper dtoMapper(){
+		return new DtoMapper();
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,99 @@
+package com.book.libraryapi.Limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Additive-increase/multiplicative-decrease concurrency limit. A request whose
+ * slowest repository call took longer than the threshold, or that failed, shrinks the
+ * limit by {@code backoffRatio}; a fast one grows it by one while at least half
+ * of the limit is in use, so an idle service does not inflate it.
+ */
+public class AimdLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long thresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private final Counter rejected;
+
+    public AimdLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                       long thresholdMs, double backoffRatio, MeterRegistry registry) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.backoffRatio = backoffRatio;
+
+        Gauge.builder("http.concurrency.limit", this, AimdLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("limiter", name)
+                .register(registry);
+        Gauge.builder("http.concurrency.inflight", inFlight, AtomicInteger::get)
+                .description("Requests currently holding a permit")
+                .tag("limiter", name)
+                .register(registry);
+        this.rejected = Counter.builder("http.concurrency.rejected")
+                .description("Requests rejected because the limit was reached")
+                .tag("limiter", name)
+                .register(registry);
+    }
+
+    /**
+     * Takes a permit, or returns {@code false} right away when the limit is reached.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit. {@code slowestCallNanos} is the duration of the slowest
+     * repository call the request made; with {@code calls == 0} and no failure
+     * the request says nothing about database load and the limit is left alone.
+     */
+    public void release(int calls, long slowestCallNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        if (calls == 0 && !failed) {
+            return;
+        }
+        adjust(current, slowestCallNanos, failed);
+    }
+
+    private synchronized void adjust(int inFlightAtRelease, long slowestCallNanos, boolean failed) {
+        if (failed || slowestCallNanos > thresholdNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlightAtRelease * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,72 @@
+package com.book.libraryapi.Limiter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Caps in-flight requests with separate adaptive limits for reads (GET, HEAD)
+ * and writes, so a burst of checkouts cannot starve lookups of connections and
+ * vice versa. Excess requests are answered with 429 and {@code Retry-After}
+ * before they reach a controller or the JDBC pool. Batch and export requests
+ * hold a permit like any other, but their calls grow with the payload, so only
+ * their failures feed back into the limit.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final List<String> BULK_SUFFIXES = Arrays.asList("/batch", "/export");
+
+    private final AimdLimiter readLimiter;
+    private final AimdLimiter writeLimiter;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AimdLimiter readLimiter, AimdLimiter writeLimiter, long retryAfterSeconds) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfterSeconds));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AimdLimiter limiter = isRead(request) ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Concurrency limit reached");
+            return;
+        }
+
+        RepositoryLatency.Sample sample = RepositoryLatency.start();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            RepositoryLatency.stop();
+            if (isBulk(request)) {
+                limiter.release(0, 0, failed);
+            } else {
+                limiter.release(sample.getCalls(), sample.getSlowestNanos(), failed);
+            }
+        }
+    }
+
+    private boolean isBulk(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return BULK_SUFFIXES.stream().anyMatch(uri::endsWith);
+    }
+
+    private boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method);
+    }
+}
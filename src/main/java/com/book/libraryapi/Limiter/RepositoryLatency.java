@@ -0,0 +1,49 @@
+package com.book.libraryapi.Limiter;
+
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the repository calls made by the current request thread and keeps the
+ * slowest one: a request that makes many fast calls says nothing more about
+ * database load than one that makes a single fast call. Registered
+ * as an invocation listener on every repository factory, so custom fragments
+ * such as {@code BookRepositoryCustomImpl} are measured too.
+ */
+public class RepositoryLatency implements RepositoryMethodInvocationListener {
+
+    private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+    static Sample start() {
+        Sample sample = new Sample();
+        CURRENT.set(sample);
+        return sample;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        Sample sample = CURRENT.get();
+        if (sample != null) {
+            sample.calls++;
+            sample.slowestNanos = Math.max(sample.slowestNanos, invocation.getDuration(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    static final class Sample {
+        private int calls;
+        private long slowestNanos;
+
+        int getCalls() {
+            return calls;
+        }
+
+        long getSlowestNanos() {
+            return slowestNanos;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.book.libraryapi.Mapper;
+
+import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Dto.LoanDto;
+import com.book.libraryapi.Dto.ReturnedLoanDTO;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+
+/**
+ * Hand-written entity/DTO conversions for the request path. Plain getter and
+ * setter calls, so no reflection or property matching happens per call.
+ */
+public class DtoMapper {
+
+    public BookDTO toDto(Book book){
+        if (book == null) {
+            return null;
+        }
+        return BookDTO.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .loanPeriodDays(book.getLoanPeriodDays())
+                .build();
+    }
+
+    public Book toEntity(BookDTO dto){
+        if (dto == null) {
+            return null;
+        }
+        return Book.builder()
+                .id(dto.getId())
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .isbn(dto.getIsbn())
+                .loanPeriodDays(dto.getLoanPeriodDays())
+                .build();
+    }
+
+    public LoanDto toDto(Loan loan){
+        if (loan == null) {
+            return null;
+        }
+        Book book = loan.getBook();
+        return LoanDto.builder()
+                .id(loan.getId())
+                .isbn(book != null ? book.getIsbn() : null)
+                .customer(loan.getCustomer())
+                .customerEmail(loan.getCustomerEmail())
+                .bookDTO(toDto(book))
+                .dueDate(loan.getDueDate())
+                .status(loan.getStatus())
+                .build();
+    }
+
+    public Loan applyReturn(ReturnedLoanDTO dto, Loan loan){
+        loan.setReturned(dto.getReturned());
+        return loan;
+    }
+}
@@ -4,24 +4,47 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_book_isbn", columnNames = "isbn"),
+        indexes = @Index(name = "ix_book_active_loan", columnList = "active_loan_id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 public class Book {
 
+    public static final String CACHE_REGION = "book";
+
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
     private String title;
     private String author;
     private String isbn;
+    /**
+     * Loan period for this book in days; null falls back to the customer or
+     * default period of {@link com.book.libraryapi.Service.LoanPeriodPolicy}.
+     */
+    private Integer loanPeriodDays;
+    /**
+     * Id of the loan currently holding the book, or null when it is available.
+     * Written only by the conditional updates in {@link com.book.libraryapi.Repository.BookRepository},
+     * which evict the book from the second-level cache themselves.
+     */
+    @Column(name = "active_loan_id", insertable = false, updatable = false)
+    private Long activeLoanId;
+    @Version
+    private Long version;
     @OneToMany( mappedBy = "book")
     private List<Loan> loans;
 }
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -13,16 +14,67 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "ix_loan_status_due_date", columnList = "status, due_date"),
+        @Index(name = "ix_loan_status_returned_at", columnList = "status, returned_at, due_date")
+})
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
     private String customer;
     @JoinColumn(name = "book_id")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
     private LocalDate loanDate;
+    /**
+     * Last day the book may be kept; set from {@link com.book.libraryapi.Service.LoanPeriodPolicy}
+     * when the loan is created. Null only for rows the backfill has not reached yet.
+     */
+    @Column(name = "due_date")
+    private LocalDate dueDate;
     private Boolean returned;
+    /**
+     * Day the book came back, set with {@link #returned}. Null for loans that
+     * are open, and for loans returned before the column existed.
+     */
+    @Column(name = "returned_at")
+    private LocalDate returnedAt;
+    /**
+     * Kept in step with {@link #returned}; ACTIVE loans past their due date
+     * are moved to OVERDUE by the late loans job.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @ColumnDefault("'ACTIVE'")
+    private LoanStatus status;
     private String customerEmail;
+    @Version
+    private Long version;
+
+    public void setReturned(Boolean returned) {
+        this.returned = returned;
+        if (!Boolean.TRUE.equals(returned)) {
+            this.returnedAt = null;
+        } else if (returnedAt == null) {
+            this.returnedAt = LocalDate.now();
+        }
+        this.status = statusFor(returned, dueDate, LocalDate.now());
+    }
+
+    public static LoanStatus statusFor(Boolean returned, LocalDate dueDate, LocalDate today) {
+        if (Boolean.TRUE.equals(returned)) {
+            return LoanStatus.RETURNED;
+        }
+        return dueDate != null && dueDate.isBefore(today) ? LoanStatus.OVERDUE : LoanStatus.ACTIVE;
+    }
+
+    @PrePersist
+    void initStatus() {
+        if (status == null) {
+            status = statusFor(returned, dueDate, LocalDate.now());
+        }
+    }
 }
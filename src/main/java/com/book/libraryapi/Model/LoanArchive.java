@@ -0,0 +1,62 @@
+package com.book.libraryapi.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cold tier of the loan history: returned loans moved out of {@code loan} by
+ * {@link com.book.libraryapi.Service.LoanArchiveJob}. Rows keep the id they
+ * had as loans and are never updated.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "loan_archive", indexes = {
+        @Index(name = "ix_loan_archive_book", columnList = "book_id"),
+        @Index(name = "ix_loan_archive_customer", columnList = "customer")
+})
+public class LoanArchive {
+
+    @Id
+    private Long id;
+    private String customer;
+    @JoinColumn(name = "book_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Book book;
+    private LocalDate loanDate;
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+    private Boolean returned;
+    @Column(name = "returned_at")
+    private LocalDate returnedAt;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private LoanStatus status;
+    private String customerEmail;
+    private LocalDateTime archivedAt;
+
+    /**
+     * Detached, read-only view as a {@link Loan}, so listings can mix both tiers.
+     */
+    public Loan toLoan() {
+        return Loan.builder()
+                .id(id)
+                .customer(customer)
+                .book(book)
+                .loanDate(loanDate)
+                .dueDate(dueDate)
+                .returned(returned)
+                .returnedAt(returnedAt)
+                .status(status)
+                .customerEmail(customerEmail)
+                .build();
+    }
+}
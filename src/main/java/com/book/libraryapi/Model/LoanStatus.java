@@ -0,0 +1,7 @@
+package com.book.libraryapi.Model;
+
+public enum LoanStatus {
+    ACTIVE,
+    OVERDUE,
+    RETURNED
+}
@@ -0,0 +1,42 @@
+package com.book.libraryapi.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "mail_outbox",
+        indexes = @Index(name = "idx_mail_outbox_status_next_attempt", columnList = "status, nextAttemptAt"))
+public class MailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mail_outbox_seq")
+    @SequenceGenerator(name = "mail_outbox_seq", sequenceName = "mail_outbox_seq", allocationSize = 50)
+    private Long id;
+    private String recipient;
+    private String subject;
+    @Column(length = 4000)
+    private String text;
+    @Enumerated(EnumType.STRING)
+    private MailOutboxStatus status;
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime sentAt;
+    @Column(length = 1000)
+    private String lastError;
+    /**
+     * Bumped by every claim and result, so a dispatcher whose lease ran out
+     * cannot overwrite the row another one has claimed since.
+     */
+    @Version
+    private Long version;
+}
@@ -0,0 +1,8 @@
+package com.book.libraryapi.Model;
+
+public enum MailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
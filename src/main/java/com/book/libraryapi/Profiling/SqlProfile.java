@@ -0,0 +1,46 @@
+package com.book.libraryapi.Profiling;
+
+import lombok.Getter;
+
+/**
+ * SQL activity of the current request. Bound to the request thread by
+ * {@link SqlProfilingFilter}; statements run on other threads are not counted.
+ */
+@Getter
+public class SqlProfile {
+
+    private static final ThreadLocal<SqlProfile> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long jdbcTimeMs;
+    private int entitiesLoaded;
+    private long slowestMs = -1;
+    private String slowestSql;
+
+    static SqlProfile start() {
+        SqlProfile profile = new SqlProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static SqlProfile current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(String sql, long elapsedMs) {
+        statements++;
+        jdbcTimeMs += elapsedMs;
+        if (elapsedMs > slowestMs) {
+            slowestMs = elapsedMs;
+            slowestSql = sql;
+        }
+    }
+
+    void recordLoad() {
+        entitiesLoaded++;
+    }
+}
@@ -0,0 +1,64 @@
+package com.book.libraryapi.Profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the SQL activity of each request as response headers and logs the
+ * requests slower than the configured threshold. The body is buffered so the
+ * headers can still be written once the handler has finished.
+ */
+@Slf4j
+public class SqlProfilingFilter extends OncePerRequestFilter {
+
+    public static final String SQL_COUNT_HEADER = "X-Sql-Count";
+    public static final String SQL_TIME_HEADER = "X-Sql-Time-Ms";
+    public static final String ENTITIES_LOADED_HEADER = "X-Entities-Loaded";
+    public static final String SLOWEST_SQL_HEADER = "X-Sql-Slowest-Ms";
+
+    private final long slowRequestMs;
+
+    public SqlProfilingFilter(long slowRequestMs) {
+        this.slowRequestMs = slowRequestMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // exports stream rows as they are read; buffering them would defeat that
+        return request.getRequestURI().endsWith("/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        SqlProfile profile = SqlProfile.start();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            SqlProfile.stop();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            wrapper.setHeader(SQL_COUNT_HEADER, String.valueOf(profile.getStatements()));
+            wrapper.setHeader(SQL_TIME_HEADER, String.valueOf(profile.getJdbcTimeMs()));
+            wrapper.setHeader(ENTITIES_LOADED_HEADER, String.valueOf(profile.getEntitiesLoaded()));
+            wrapper.setHeader(SLOWEST_SQL_HEADER, String.valueOf(Math.max(0, profile.getSlowestMs())));
+            if (elapsedMs >= slowRequestMs) {
+                log.warn("Slow request method={} uri={} status={} elapsedMs={} sqlCount={} sqlTimeMs={}"
+                                + " entitiesLoaded={} slowestSqlMs={} slowestSql=\"{}\"",
+                        request.getMethod(), request.getRequestURI(), wrapper.getStatus(), elapsedMs,
+                        profile.getStatements(), profile.getJdbcTimeMs(), profile.getEntitiesLoaded(),
+                        profile.getSlowestMs(), profile.getSlowestSql());
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.book.libraryapi.Profiling;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Counts entities hydrated by Hibernate for the current {@link SqlProfile},
+ * including the lazy loads triggered while mapping a response.
+ */
+public class SqlProfilingInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlProfile profile = SqlProfile.current();
+        if (profile != null) {
+            profile.recordLoad();
+        }
+        return false;
+    }
+}
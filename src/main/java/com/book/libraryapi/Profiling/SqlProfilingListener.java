@@ -0,0 +1,39 @@
+package com.book.libraryapi.Profiling;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Adds each JDBC execution to the current {@link SqlProfile}. Only the SQL
+ * text is kept: bound parameters are never read, and quoted literals are
+ * replaced so values typed inline do not reach the logs either.
+ */
+public class SqlProfilingListener implements QueryExecutionListener {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlProfile profile = SqlProfile.current();
+        if (profile == null) {
+            return;
+        }
+        String sql = queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .collect(Collectors.joining("; "));
+        profile.recordStatement(redact(sql), execInfo.getElapsedTime());
+    }
+
+    static String redact(String sql) {
+        return STRING_LITERAL.matcher(sql).replaceAll("'?'");
+    }
+}
@@ -0,0 +1,94 @@
+package com.book.libraryapi.Profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Measures time-to-first-request: once the application is ready it calls one of
+ * its own endpoints and logs the JVM uptime at that point, so lazy beans, the
+ * dispatcher servlet and the first Hibernate query are all included. Used by the
+ * {@code appcds} build for the CDS training run and the startup report; with
+ * {@code application.startup.probe.exit=true} the JVM exits afterwards, which
+ * is also when the dynamic CDS archive is written.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "application.startup.probe.enabled", havingValue = "true")
+public class StartupProbe {
+
+    @Value("${application.startup.probe.label:default}")
+    private String label;
+
+    @Value("${application.startup.probe.path:/books?page=0&size=1}")
+    private String path;
+
+    @Value("${application.startup.probe.api-docs-output:}")
+    private String apiDocsOutput;
+
+    @Value("${application.startup.probe.exit:true}")
+    private boolean exit;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        long readyMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        int status = -1;
+        try {
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            status = get(base + path, null);
+            long firstRequestMs = ManagementFactory.getRuntimeMXBean().getUptime();
+            log.info("Startup probe finished: label={} readyMs={} firstRequestMs={} status={}",
+                    label, readyMs, firstRequestMs, status);
+            if (StringUtils.hasText(apiDocsOutput)) {
+                get(base + "/v2/api-docs", Paths.get(apiDocsOutput));
+            }
+        } catch (IOException ex) {
+            log.error("Startup probe request failed after readyMs={}", readyMs, ex);
+        }
+        if (exit) {
+            int code = status / 100 == 2 ? 0 : 1;
+            // close from another thread: the ready event is still being published on this one
+            new Thread(() -> System.exit(SpringApplication.exit(context, () -> code)), "startup-probe-exit").start();
+        }
+    }
+
+    private int get(String url, Path target) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(10_000);
+        connection.setReadTimeout(60_000);
+        try {
+            int status = connection.getResponseCode();
+            if (target != null && status / 100 == 2) {
+                Path parent = target.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (InputStream body = connection.getInputStream()) {
+                    Files.copy(body, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                log.info("API docs written to {}", target.toAbsolutePath());
+            }
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
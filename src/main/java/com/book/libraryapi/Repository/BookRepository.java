@@ -1,13 +1,106 @@
 package com.book.libraryapi.Repository;
 
 import com.book.libraryapi.Model.Book;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.cfg.AvailableSettings.JPA_SHARED_CACHE_STORE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+    int EXPORT_FETCH_SIZE = 500;
+    String QUERY_CACHE_REGION = "book-queries";
+
     boolean existsByIsbn(String isbn);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
     Optional<Book> findByIsbn(String isbn);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    /**
+     * The catalog search behind {@code GET /books}; both the page and its
+     * count query are served from the query cache until a book changes.
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    <S extends Book> Page<S> findAll(Example<S> example, Pageable pageable);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    @Query("select b from Book b where b.id > :after" +
+            " and (:title is null or lower(b.title) like lower(concat('%', :title, '%')))" +
+            " and (:author is null or lower(b.author) like lower(concat('%', :author, '%')))" +
+            " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))" +
+            " and (:loanPeriodDays is null or b.loanPeriodDays = :loanPeriodDays)" +
+            " order by b.id")
+    Slice<Book> findSliceAfter(@Param("after") Long after,
+                               @Param("title") String title,
+                               @Param("author") String author,
+                               @Param("isbn") String isbn,
+                               @Param("loanPeriodDays") Integer loanPeriodDays,
+                               Pageable pageable);
+
+    /**
+     * Keyset walk over the whole table for rebuilding the search index: rows
+     * are read without touching the query cache and without being stored in
+     * the second-level cache, so a rebuild does not evict the hot entries.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = JPA_SHARED_CACHE_STORE_MODE, value = "BYPASS")
+    })
+    @Query("select b from Book b where b.id > :after order by b.id")
+    Slice<Book> findIndexSliceAfter(@Param("after") Long after, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select b from Book b where" +
+            " (:title is null or lower(b.title) like lower(concat('%', :title, '%')))" +
+            " and (:author is null or lower(b.author) like lower(concat('%', :author, '%')))" +
+            " and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))" +
+            " and (:loanPeriodDays is null or b.loanPeriodDays = :loanPeriodDays)" +
+            " order by b.id")
+    Stream<Book> streamAll(@Param("title") String title,
+                           @Param("author") String author,
+                           @Param("isbn") String isbn,
+                           @Param("loanPeriodDays") Integer loanPeriodDays);
 }
@@ -0,0 +1,36 @@
+package com.book.libraryapi.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes to the active loan column. They bypass Hibernate so that a checkout
+ * or return does not wipe the whole book cache region, as a bulk JPQL update
+ * would; the books touched are evicted one by one instead.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Marks the book as held by the loan, only if it has no active loan.
+     * Returns 0 when the book was already loaned.
+     */
+    int claimForLoan(Long bookId, Long loanId);
+
+    /**
+     * Same conditional update as {@link #claimForLoan(Long, Long)}, sent as a
+     * single JDBC batch. Returns one update count per pair: 0 means the book
+     * already had an active loan.
+     */
+    int[] claimForLoans(List<Long> bookIds, List<Long> loanIds);
+
+    /**
+     * Frees the books held by the given loans and returns how many were freed.
+     */
+    int releaseLoans(Collection<Long> loanIds);
+
+    /**
+     * Drops the books from the second-level cache, now and again once the
+     * current transaction completes.
+     */
+    void evictCached(Collection<Long> bookIds);
+}
@@ -0,0 +1,111 @@
+package com.book.libraryapi.Repository;
+
+import com.book.libraryapi.Model.Book;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final String CLAIM_SQL =
+            "update book set active_loan_id = ? where id = ? and active_loan_id is null";
+    private static final String RELEASE_SQL =
+            "update book set active_loan_id = null where id = ? and active_loan_id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int claimForLoan(Long bookId, Long loanId) {
+        return claimForLoans(Collections.singletonList(bookId), Collections.singletonList(loanId))[0];
+    }
+
+    @Override
+    @Transactional
+    public int[] claimForLoans(List<Long> bookIds, List<Long> loanIds) {
+        int[] counts = batch(CLAIM_SQL, loanIds, bookIds);
+        List<Long> claimed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                claimed.add(bookIds.get(i));
+            }
+        }
+        evictCached(claimed);
+        return counts;
+    }
+
+    @Override
+    @Transactional
+    public int releaseLoans(Collection<Long> loanIds) {
+        List<Object[]> held = entityManager
+                .createQuery("select b.id, b.activeLoanId from Book b where b.activeLoanId in :loanIds", Object[].class)
+                .setParameter("loanIds", loanIds)
+                .getResultList();
+        if (held.isEmpty()) {
+            return 0;
+        }
+        List<Long> bookIds = new ArrayList<>(held.size());
+        List<Long> heldBy = new ArrayList<>(held.size());
+        for (Object[] row : held) {
+            bookIds.add((Long) row[0]);
+            heldBy.add((Long) row[1]);
+        }
+        int released = 0;
+        for (int count : batch(RELEASE_SQL, bookIds, heldBy)) {
+            released += count;
+        }
+        evictCached(bookIds);
+        return released;
+    }
+
+    /**
+     * A reader may put the old row back in the cache between the update and
+     * the commit, so the books are evicted again after completion.
+     */
+    @Override
+    public void evictCached(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        bookIds.forEach(id -> cache.evict(Book.class, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = new ArrayList<>(bookIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(id -> cache.evict(Book.class, id));
+                }
+            });
+        }
+    }
+
+    /**
+     * Pending changes are flushed first, as Hibernate would before a JPQL
+     * update, then the statement runs once per pair in a single JDBC batch.
+     */
+    private int[] batch(String sql, List<Long> first, List<Long> second) {
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < first.size(); i++) {
+                    statement.setLong(1, first.get(i));
+                    statement.setLong(2, second.get(i));
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.book.libraryapi.Repository;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.LoanArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoanArchiveRepository extends JpaRepository<LoanArchive, Long>, LoanArchiveRepositoryCustom {
+
+    /**
+     * Rows of one page, without a count; listings count the archive only
+     * when the total cannot be told from the page itself.
+     */
+    @Query("select a from LoanArchive as a join fetch a.book as b where b.isbn = :isbn or a.customer = :customer")
+    List<LoanArchive> findByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                               @Param("customer") String customer,
+                                               Pageable pageable);
+
+    @Query("select count(a) from LoanArchive as a join a.book as b where b.isbn = :isbn or a.customer = :customer")
+    long countByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer);
+
+    @EntityGraph(attributePaths = "book")
+    List<LoanArchive> findByBook(Book book, Pageable pageable);
+
+    long countByBook(Book book);
+}
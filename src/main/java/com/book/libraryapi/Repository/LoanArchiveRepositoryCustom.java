@@ -0,0 +1,18 @@
+package com.book.libraryapi.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Writes to the archive that touch no cached data. A native statement with
+ * no declared query spaces makes Hibernate drop every second-level and query
+ * cache region, so the archive table is declared as the only one affected.
+ */
+public interface LoanArchiveRepositoryCustom {
+
+    /**
+     * Copies the loans into the archive with a single insert-select, so the
+     * rows never travel through the application.
+     */
+    int copyFromLoans(Collection<Long> ids, LocalDateTime archivedAt);
+}
@@ -0,0 +1,32 @@
+package com.book.libraryapi.Repository;
+
+import com.book.libraryapi.Model.LoanArchive;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public class LoanArchiveRepositoryCustomImpl implements LoanArchiveRepositoryCustom {
+
+    private static final String COPY_SQL = "insert into loan_archive" +
+            " (id, customer, book_id, loan_date, due_date, returned, returned_at, status, customer_email, archived_at)" +
+            " select id, customer, book_id, loan_date, due_date, returned, returned_at, status, customer_email, :archivedAt" +
+            " from loan where id in (:ids)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int copyFromLoans(Collection<Long> ids, LocalDateTime archivedAt) {
+        return entityManager.createNativeQuery(COPY_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(LoanArchive.class)
+                .setParameter("ids", ids)
+                .setParameter("archivedAt", archivedAt)
+                .executeUpdate();
+    }
+}
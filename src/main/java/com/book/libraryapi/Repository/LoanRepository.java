@@ -2,27 +2,114 @@ package com.book.libraryapi.Repository;
 
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Model.LoanStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
-    @Query(value = "select case when ( count(l.id) > 0) then true else false end from" +
-            " Loan l where l.book = :book and (l.returned is null or l.returned is false)")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
+    List<LoanStatus> OPEN = Arrays.asList(LoanStatus.ACTIVE, LoanStatus.OVERDUE);
+
+    /**
+     * The return flag as stored, without flushing first: with open-in-view the
+     * loan being updated may already be managed and changed in memory.
+     */
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("select l.returned from Loan l where l.id = :id")
+    Optional<Boolean> findStoredReturnedById(@Param("id") Long id);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
+    @Query(value = "select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer",
+            countQuery = "select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
     Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn,
                                         @Param("customer") String customer,
                                         Pageable pgRequest);
+    @Query(value = "select l from Loan as l join fetch l.book as b where l.id > :after" +
+            " and (b.isbn = :isbn or l.customer = :customer) order by l.id")
+    Slice<Loan> findSliceByBookIsbnOrCustomerAfter(@Param("after") Long after,
+                                                   @Param("isbn") String isbn,
+                                                   @Param("customer") String customer,
+                                                   Pageable pageable);
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBook(Book book, Pageable pageable);
-    @Query("select l from Loan l where l.loanDate <= :threDaysAgo and (l.returned is null or l.returned is false)")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threDaysAgo") LocalDate threDaysAgo);
+    /**
+     * Open loans due before the given day; two range probes on the
+     * (status, due_date) index, whatever the size of the loan history.
+     */
+    List<Loan> findByStatusInAndDueDateBefore(Collection<LoanStatus> statuses, LocalDate date);
+
+    default List<Loan> findOverdue(LocalDate today) {
+        return findByStatusInAndDueDateBefore(OPEN, today);
+    }
+
+    @Transactional
+    @Modifying
+    @Query("update versioned Loan l set l.status = com.book.libraryapi.Model.LoanStatus.OVERDUE" +
+            " where l.status = com.book.libraryapi.Model.LoanStatus.ACTIVE and l.dueDate < :today")
+    int markOverdue(@Param("today") LocalDate today);
+
+    @Query("select min(l.dueDate) from Loan l where l.status = com.book.libraryapi.Model.LoanStatus.OVERDUE")
+    Optional<LocalDate> findEarliestOverdueDueDate();
+
+    /**
+     * Keyset page of OVERDUE loans in (due date, id) order, the order of the
+     * status/due date index, so each page reads only the rows it returns.
+     */
+    @Query("select l from Loan l join fetch l.book where l.status = com.book.libraryapi.Model.LoanStatus.OVERDUE" +
+            " and l.dueDate >= :dueDate and (l.dueDate > :dueDate or l.id > :lastId)" +
+            " order by l.dueDate, l.id")
+    List<Loan> findOverdueAfter(@Param("dueDate") LocalDate dueDate,
+                                @Param("lastId") Long lastId,
+                                Pageable pageable);
+
+    /**
+     * Loans returned before the cutoff, found through the (status, returned at,
+     * due date) index. Loans returned before the return day was recorded fall
+     * back to their due date, the closest thing they have to it.
+     */
+    @Query("select l.id from Loan l where l.status = com.book.libraryapi.Model.LoanStatus.RETURNED" +
+            " and (l.returnedAt < :cutoff or (l.returnedAt is null and l.dueDate < :cutoff))")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Query("select l from Loan l left join fetch l.book where l.dueDate is null and l.id > :lastId order by l.id")
+    List<Loan> findWithoutDueDateAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Open loans whose book does not point back at any loan: rows written
+     * before the active loan column existed.
+     */
+    @Query("select l from Loan l join fetch l.book b where (l.returned is null or l.returned = false)" +
+            " and b.activeLoanId is null and l.id > :lastId order by l.id")
+    List<Loan> findUnclaimedOpenAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + BookRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select l from Loan as l join fetch l.book as b where" +
+            " (:isbn is null and :customer is null) or b.isbn = :isbn or l.customer = :customer" +
+            " order by l.id")
+    Stream<Loan> streamByBookIsbnOrCustomer(@Param("isbn") String isbn,
+                                            @Param("customer") String customer);
 }
@@ -0,0 +1,25 @@
+package com.book.libraryapi.Repository;
+
+import com.book.libraryapi.Model.MailOutbox;
+import com.book.libraryapi.Model.MailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+    @Query("select m from MailOutbox m where m.status in :status and m.nextAttemptAt <= :now"
+            + " and m.id not in :excluded order by m.id")
+    List<MailOutbox> findDue(@Param("status") Collection<MailOutboxStatus> status,
+                             @Param("now") LocalDateTime now,
+                             @Param("excluded") Collection<Long> excluded,
+                             Pageable pageable);
+
+    long countByStatus(MailOutboxStatus status);
+}
@@ -0,0 +1,23 @@
+package com.book.libraryapi.Repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Page request starting at an arbitrary row instead of a multiple of the page
+ * size; used to continue a page of hot loans into the archive.
+ */
+public class OffsetPageRequest extends PageRequest {
+
+    private final long offset;
+
+    public OffsetPageRequest(long offset, int limit, Sort sort) {
+        super(0, limit, sort);
+        this.offset = offset;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,56 @@
+package com.book.libraryapi.Routing;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to the replicas, round robin,
+ * and everything else to the primary. Reads are kept on the primary while
+ * {@link ReadYourWrites} is pinned for the current request.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica-";
+
+    private final int replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private ReadWriteRoutingDataSource(int replicas) {
+        this.replicas = replicas;
+    }
+
+    /**
+     * Wraps the router in a {@link LazyConnectionDataSourceProxy}: the
+     * transaction manager asks for a connection before it marks the
+     * transaction read-only, so the real connection is only fetched (and
+     * routed) at the first statement.
+     */
+    public static DataSource create(DataSource primary, List<DataSource> replicas) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA + i, replicas.get(i));
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicas.size());
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isPinned()) {
+            return PRIMARY;
+        }
+        return REPLICA + Math.floorMod(next.getAndIncrement(), replicas);
+    }
+}
@@ -0,0 +1,25 @@
+package com.book.libraryapi.Routing;
+
+/**
+ * Per-request flag keeping read-only transactions on the primary, set by
+ * {@link ReadYourWritesFilter} for clients that wrote a moment ago.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPinned() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PINNED.remove();
+    }
+}
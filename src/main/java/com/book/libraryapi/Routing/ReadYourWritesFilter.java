@@ -0,0 +1,58 @@
+package com.book.libraryapi.Routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Remembers which clients wrote recently and pins their reads to the primary
+ * for a while, so they see their own changes despite replica lag. Clients are
+ * told apart by the {@value #CLIENT_HEADER} header, or their address.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(long windowMs) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(windowMs))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientOf(request);
+        if (recentWriters.getIfPresent(client) != null) {
+            ReadYourWrites.pin();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+            if (isWrite(request) && response.getStatus() < 400) {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(CLIENT_HEADER);
+        return client != null && !client.isEmpty() ? client : request.getRemoteAddr();
+    }
+}
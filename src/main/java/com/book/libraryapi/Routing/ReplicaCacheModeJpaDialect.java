@@ -0,0 +1,65 @@
+package com.book.libraryapi.Routing;
+
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+
+/**
+ * Keeps transactions that {@link ReadWriteRoutingDataSource} sends to a replica
+ * from filling the second-level and query caches. A lagging replica could put
+ * back a row the primary already changed or deleted, and every client would
+ * be served it until the entry expires. Such transactions still read the
+ * caches; they just never write to them.
+ */
+public class ReplicaCacheModeJpaDialect extends HibernateJpaDialect {
+
+    /**
+     * Set as an entity manager property rather than a Hibernate cache mode:
+     * {@code find} derives its cache mode from this property on every call.
+     */
+    private static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly() || ReadYourWrites.isPinned()) {
+            return transactionData;
+        }
+        ReplicaTransactionData replicaData = new ReplicaTransactionData(transactionData, entityManager,
+                entityManager.getProperties().get(STORE_MODE));
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        return replicaData;
+    }
+
+    /**
+     * Restores the store mode: with open-in-view the session outlives the
+     * transaction and may run a read-write one next.
+     */
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData) {
+            ReplicaTransactionData replicaData = (ReplicaTransactionData) transactionData;
+            replicaData.entityManager.setProperty(STORE_MODE,
+                    replicaData.storeMode != null ? replicaData.storeMode : CacheStoreMode.USE);
+            transactionData = replicaData.transactionData;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private static class ReplicaTransactionData {
+
+        private final Object transactionData;
+        private final EntityManager entityManager;
+        private final Object storeMode;
+
+        ReplicaTransactionData(Object transactionData, EntityManager entityManager, Object storeMode) {
+            this.transactionData = transactionData;
+            this.entityManager = entityManager;
+            this.storeMode = storeMode;
+        }
+    }
+}
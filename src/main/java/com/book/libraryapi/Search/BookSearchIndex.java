@@ -0,0 +1,291 @@
+package com.book.libraryapi.Search;
+
+import com.book.libraryapi.Model.Book;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over Book title, author and isbn. A query string is
+ * split into trigrams whose posting lists are intersected; the few survivors are
+ * verified against the stored lower-cased values so the result is exactly the
+ * "contains, ignoring case" match GET /books has always had, without a table scan.
+ * One- and two-character grams are indexed as well, so a short query reads the
+ * posting of the query itself instead of checking every book.
+ *
+ * The index is kept current by BookServiceImpl on save/update/delete and is only
+ * consulted once {@link BookSearchIndexLoader} has finished the initial build.
+ * It only sees writes made through this instance.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int ISBN = 2;
+    // best matches first: higher score, then lower id
+    private static final Comparator<long[]> RANKING =
+            Comparator.<long[]>comparingLong(entry -> -entry[0]).thenComparingLong(entry -> entry[1]);
+
+    private final List<Map<String, RoaringBitmap>> postings = Arrays.asList(new HashMap<>(), new HashMap<>(), new HashMap<>());
+    private final Map<Integer, String[]> docs = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Set<Integer> removedDuringBuild = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+    private boolean building;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            building = true;
+            ready = false;
+            removedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book read by the initial build; live writes that happened while
+     * the build was running take precedence over the (older) row being loaded.
+     */
+    public void load(Book book) {
+        Integer id = docId(book.getId());
+        lock.writeLock().lock();
+        try {
+            if (id == null || docs.containsKey(id) || removedDuringBuild.contains(id)) {
+                return;
+            }
+            add(id, book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            building = false;
+            removedDuringBuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        Integer id = docId(book.getId());
+        lock.writeLock().lock();
+        try {
+            if (id == null) {
+                // ids beyond int range cannot be stored; stop answering queries
+                ready = false;
+                return;
+            }
+            removeDoc(id);
+            add(id, book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        Integer id = docId(bookId);
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDoc(id);
+            if (building) {
+                removedDuringBuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the books matching every non-null criterion, best
+     * matches first (exact value, then prefix, then anywhere), ties by id.
+     */
+    public SearchResult search(String title, String author, String isbn, long offset, int limit) {
+        String[] query = {normalize(title), normalize(author), normalize(isbn)};
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = all.clone();
+            for (int field = TITLE; field <= ISBN; field++) {
+                if (query[field] != null) {
+                    candidates.and(candidates(field, query[field]));
+                }
+            }
+
+            // only the best offset + limit matches are kept, worst on top of the heap
+            long wanted = offset + limit;
+            PriorityQueue<long[]> best = new PriorityQueue<>(RANKING.reversed());
+            long[] total = {0};
+            candidates.forEach((int id) -> {
+                int score = score(docs.get(id), query);
+                if (score == 0) {
+                    return;
+                }
+                total[0]++;
+                long[] entry = {score, id};
+                if (best.size() < wanted) {
+                    best.add(entry);
+                } else if (RANKING.compare(entry, best.peek()) < 0) {
+                    best.poll();
+                    best.add(entry);
+                }
+            });
+
+            long[][] ranked = best.toArray(new long[0][]);
+            Arrays.sort(ranked, RANKING);
+            List<Long> ids = new ArrayList<>(limit);
+            for (long i = offset; i < ranked.length; i++) {
+                ids.add(ranked[(int) i][1]);
+            }
+            return new SearchResult(ids, total[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap candidates(int field, String query) {
+        if (query.isEmpty()) {
+            return all;
+        }
+        if (query.length() < GRAM) {
+            RoaringBitmap posting = postings.get(field).get(query);
+            return posting == null ? new RoaringBitmap() : posting;
+        }
+        RoaringBitmap result = null;
+        for (String gram : grams(query, GRAM)) {
+            RoaringBitmap posting = postings.get(field).get(gram);
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            result = result == null ? posting.clone() : RoaringBitmap.and(result, posting);
+        }
+        return result;
+    }
+
+    private static int score(String[] doc, String[] query) {
+        int score = 0;
+        for (int field = TITLE; field <= ISBN; field++) {
+            if (query[field] == null) {
+                continue;
+            }
+            String value = doc[field];
+            if (value == null || !value.contains(query[field])) {
+                return 0;
+            }
+            score += value.equals(query[field]) ? 3 : value.startsWith(query[field]) ? 2 : 1;
+        }
+        return Math.max(score, 1);
+    }
+
+    private void add(int id, Book book) {
+        String[] doc = {normalize(book.getTitle()), normalize(book.getAuthor()), normalize(book.getIsbn())};
+        docs.put(id, doc);
+        all.add(id);
+        for (int field = TITLE; field <= ISBN; field++) {
+            if (doc[field] == null) {
+                continue;
+            }
+            for (String gram : indexedGrams(doc[field])) {
+                postings.get(field).computeIfAbsent(gram, key -> new RoaringBitmap()).add(id);
+            }
+        }
+    }
+
+    private void removeDoc(int id) {
+        String[] doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        all.remove(id);
+        for (int field = TITLE; field <= ISBN; field++) {
+            if (doc[field] == null) {
+                continue;
+            }
+            Map<String, RoaringBitmap> fieldPostings = postings.get(field);
+            for (String gram : indexedGrams(doc[field])) {
+                RoaringBitmap posting = fieldPostings.get(gram);
+                if (posting != null) {
+                    posting.remove(id);
+                    if (posting.isEmpty()) {
+                        fieldPostings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> indexedGrams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int size = 1; size <= GRAM; size++) {
+            grams.addAll(grams(value, size));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(String value, int size) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + size <= value.length(); i++) {
+            grams.add(value.substring(i, i + size));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Integer docId(Long id) {
+        if (id == null || id < 0 || id > Integer.MAX_VALUE) {
+            return null;
+        }
+        return id.intValue();
+    }
+
+    public static class SearchResult {
+        private final List<Long> ids;
+        private final long total;
+
+        public SearchResult(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+}
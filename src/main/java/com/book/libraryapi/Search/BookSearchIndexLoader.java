@@ -0,0 +1,50 @@
+package com.book.libraryapi.Search;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills {@link BookSearchIndex} once the application is up, walking the book
+ * table in id order one keyset page at a time, around the second-level and
+ * query caches. Until it finishes, searches keep going to the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "application.search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class BookSearchIndexLoader {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final BookRepository repository;
+    private final BookSearchIndex index;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        index.beginBuild();
+        PageRequest page = PageRequest.of(0, PAGE_SIZE);
+        Long lastId = 0L;
+        Slice<Book> slice;
+        do {
+            slice = repository.findIndexSliceAfter(lastId, page);
+            List<Book> books = slice.getContent();
+            books.forEach(index::load);
+            if (!books.isEmpty()) {
+                lastId = books.get(books.size() - 1).getId();
+            }
+        } while (slice.hasNext());
+        index.finishBuild();
+        log.info("Book search index built: books={} elapsedMs={}", index.size(), System.currentTimeMillis() - start);
+    }
+}
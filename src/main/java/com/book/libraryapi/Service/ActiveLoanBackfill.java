@@ -0,0 +1,76 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Points each book at the loan holding it for loans opened before the active
+ * loan column existed, once the application is up; without it such a book
+ * could be loaned a second time. Chunks commit on their own and claimed books
+ * drop out of the query, so an interrupted run simply resumes. When legacy
+ * data has two open loans for one book, the older one keeps it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "application.loans.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class ActiveLoanBackfill {
+
+    private final LoanRepository repository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.loans.backfill.chunk-size:500}")
+    private int chunkSize;
+
+    public ActiveLoanBackfill(LoanRepository repository,
+                              BookRepository bookRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        PageRequest limit = PageRequest.of(0, chunkSize);
+        long[] claimed = {0};
+        Long lastId = 0L;
+        List<Loan> chunk;
+        do {
+            Long after = lastId;
+            chunk = transactionTemplate.execute(status -> {
+                List<Loan> loans = repository.findUnclaimedOpenAfter(after, limit);
+                if (!loans.isEmpty()) {
+                    int[] counts = bookRepository.claimForLoans(
+                            loans.stream().map(loan -> loan.getBook().getId()).collect(Collectors.toList()),
+                            loans.stream().map(Loan::getId).collect(Collectors.toList()));
+                    for (int count : counts) {
+                        claimed[0] += count;
+                    }
+                }
+                return loans;
+            });
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == chunkSize);
+
+        if (claimed[0] > 0) {
+            log.info("Active loan backfill finished: loans={} elapsedMs={}", claimed[0], System.currentTimeMillis() - start);
+        }
+    }
+}
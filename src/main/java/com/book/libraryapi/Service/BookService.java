@@ -1,21 +1,37 @@
 package com.book.libraryapi.Service;
 
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Model.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book save(Book any);
 
+    List<BatchItemResultDTO> saveAll(List<Book> books);
+
     Optional<Book> getById(Long id);
 
+    Optional<Long> getVersion(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
     Page<Book> find(Book filter, Pageable pgRequest);
 
+    Slice<Book> findAfter(Book filter, Long after, int size);
+
     Optional<Book> getBookByIsbn(String book);
+
+    Map<String, Book> getBooksByIsbn(Collection<String> isbns);
+
+    void exportAll(Book filter, Consumer<Book> consumer);
 }
@@ -1,57 +1,281 @@
 package com.book.libraryapi.Service.Impl;
 
+import com.book.libraryapi.Cache.BookCache;
+import com.book.libraryapi.Cache.SingleFlight;
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Exception.BusinessException;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Routing.ReadYourWrites;
+import com.book.libraryapi.Search.BookSearchIndex;
 import com.book.libraryapi.Service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final int IN_LIST_SIZE = 1000;
+    private static final String ISBN_CONSTRAINT = "uk_book_isbn";
+    private static final String SAVE_FAILED = "Não foi possível gravar o livro.";
+
     private BookRepository repository;
+    private BookCache cache;
+    private BookSearchIndex searchIndex;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private EntityManager entityManager;
+    private int batchSize;
+    private SingleFlight<List<Object>, Page<Book>> findLoads;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository,
+                           BookCache cache,
+                           BookSearchIndex searchIndex,
+                           PlatformTransactionManager transactionManager,
+                           EntityManager entityManager,
+                           @Value("${application.books.batch.size:500}") int batchSize,
+                           @Value("${application.cache.books.coalesce-timeout-ms:5000}") long coalesceTimeoutMs,
+                           MeterRegistry registry) {
         this.repository = repository;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.findLoads = new SingleFlight<>("books.find", coalesceTimeoutMs, registry);
     }
 
+    /**
+     * Single insert; duplicates are rejected by the unique index on isbn
+     * rather than by a separate lookup, which also closes the check-then-insert race.
+     * Any other integrity violation is not a duplicate and is rethrown as is.
+     */
     @Override
     public Book save(Book book) {
-        if (repository.existsByIsbn(book.getIsbn())){
+        Book saved;
+        try {
+            saved = repository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicateIsbn(ex)) {
+                throw ex;
+            }
             throw new BusinessException("Isbn já cadastrado.");
         }
-        return repository.save(book);
+        cache.put(saved);
+        searchIndex.index(saved);
+        return saved;
+    }
+
+    /**
+     * Bulk create: ISBNs repeated inside the request or already stored are
+     * found up front with set-based lookups, and the rest is inserted in
+     * chunks of {@code batchSize}, each chunk in its own transaction so
+     * Hibernate can send JDBC batches (ids come from a pooled sequence).
+     * The result list has one entry per input book, in the same order. A chunk
+     * that loses an ISBN to a concurrent writer is retried one book at a time;
+     * any other integrity violation marks the chunk's books as FAILED.
+     */
+    @Override
+    public List<BatchItemResultDTO> saveAll(List<Book> books) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[books.size()];
+        Map<String, Integer> firstByIsbn = new LinkedHashMap<>();
+        for (int i = 0; i < books.size(); i++) {
+            String isbn = books.get(i).getIsbn();
+            if (firstByIsbn.putIfAbsent(isbn, i) != null) {
+                results[i] = batchResult(i, BatchItemResultDTO.Status.DUPLICATE, books.get(i), "Isbn duplicado na requisição.");
+            }
+        }
+
+        List<String> isbns = new ArrayList<>(firstByIsbn.keySet());
+        for (int start = 0; start < isbns.size(); start += IN_LIST_SIZE) {
+            List<String> chunk = isbns.subList(start, Math.min(isbns.size(), start + IN_LIST_SIZE));
+            for (String existing : repository.findExistingIsbns(chunk)) {
+                int i = firstByIsbn.remove(existing);
+                results[i] = batchResult(i, BatchItemResultDTO.Status.DUPLICATE, books.get(i), "Isbn já cadastrado.");
+            }
+        }
+
+        List<Integer> pending = new ArrayList<>(firstByIsbn.values());
+        for (int start = 0; start < pending.size(); start += batchSize) {
+            List<Integer> chunk = pending.subList(start, Math.min(pending.size(), start + batchSize));
+            insertChunk(books, chunk, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insertChunk(List<Book> books, List<Integer> chunk, BatchItemResultDTO[] results) {
+        List<Book> toInsert = chunk.stream().map(books::get).collect(Collectors.toList());
+        List<Book> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                List<Book> inserted = repository.saveAll(toInsert);
+                repository.flush();
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            if (isDuplicateIsbn(ex)) {
+                // a concurrent writer took one of the ISBNs: fall back to one insert per item
+                chunk.forEach(i -> results[i] = saveOne(i, books.get(i)));
+            } else {
+                chunk.forEach(i -> results[i] = batchResult(i, BatchItemResultDTO.Status.FAILED, books.get(i), SAVE_FAILED));
+            }
+            return;
+        } finally {
+            entityManager.clear();
+        }
+        for (int j = 0; j < chunk.size(); j++) {
+            int i = chunk.get(j);
+            Book book = saved.get(j);
+            cache.put(book);
+            searchIndex.index(book);
+            results[i] = batchResult(i, BatchItemResultDTO.Status.CREATED, book, null);
+        }
+    }
+
+    private BatchItemResultDTO saveOne(int i, Book book) {
+        book.setId(null);
+        try {
+            return batchResult(i, BatchItemResultDTO.Status.CREATED, save(book), null);
+        } catch (BusinessException ex) {
+            return batchResult(i, BatchItemResultDTO.Status.DUPLICATE, book, ex.getMessage());
+        } catch (DataIntegrityViolationException ex) {
+            return batchResult(i, BatchItemResultDTO.Status.FAILED, book, SAVE_FAILED);
+        }
+    }
+
+    private static boolean isDuplicateIsbn(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                return constraint != null && constraint.toLowerCase().contains(ISBN_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+
+    private static BatchItemResultDTO batchResult(int index, BatchItemResultDTO.Status status, Book book, String error) {
+        return BatchItemResultDTO.builder()
+                .index(index)
+                .status(status)
+                .id(status == BatchItemResultDTO.Status.CREATED ? book.getId() : null)
+                .isbn(book.getIsbn())
+                .erros(error == null ? null : Collections.singletonList(error))
+                .build();
     }
 
+    /**
+     * Version of the book without loading it; enough to answer conditional GETs.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    /**
+     * Cache misses are read from the primary: the book is usually loaded to be
+     * updated or deleted right after, and its version must not be stale. The
+     * transaction only wraps the load, so cache hits and callers waiting on a
+     * concurrent load of the same id do not hold a connection.
+     */
     @Override
     public Optional<Book> getById(Long id) {
-        return this.repository.findById(id);
+        return cache.getById(id, key -> transactionTemplate.execute(status -> repository.findById(key)));
     }
 
+    /**
+     * A concurrent miss may load the row before the delete commits and put it
+     * back in the cache, so the book is invalidated again after the commit.
+     * Invalidating waits for a load of the same key still in progress.
+     */
     @Override
     public void delete(Book book) {
         if (book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null");
         }
-        this.repository.delete(book);
+        transactionTemplate.executeWithoutResult(status -> {
+            this.repository.delete(book);
+            cache.invalidate(book);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cache.invalidate(book);
+                    }
+                });
+            }
+        });
+        searchIndex.remove(book.getId());
     }
 
+    /**
+     * The merge copies the caller's active loan into the second-level cache
+     * entry, and that value may be stale: the column is only written by the
+     * loan claims. The entry is dropped so the next read reloads the row.
+     */
     @Override
     public Book update(Book book) {
         if (book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null");
         }
-        return this.repository.save(book);
+        Book updated = this.repository.save(book);
+        repository.evictCached(Collections.singletonList(updated.getId()));
+        cache.put(updated);
+        searchIndex.index(updated);
+        return updated;
     }
 
+    /**
+     * Concurrent searches with an equal filter and page share one query; every
+     * caller gets its own detached copies of the books. Callers pinned to the
+     * primary only share with each other, never with a replica read.
+     */
     @Override
     public Page<Book> find(Book filter, Pageable pgRequest) {
+        List<Object> key = Arrays.asList(filter.toBuilder().build(), pgRequest, ReadYourWrites.isPinned());
+        return findLoads.execute(key, () -> readOnlyTransactionTemplate.execute(status -> search(filter, pgRequest)))
+                .map(BookCache::copy);
+    }
+
+    private Page<Book> search(Book filter, Pageable pgRequest) {
+        if (searchIndex.isReady() && pgRequest.getSort().isUnsorted() && hasCriteria(filter)) {
+            return findIndexed(filter, pgRequest);
+        }
         Example<Book> example = Example.of(filter,
                 ExampleMatcher.matching()
                         .withIgnoreCase()
@@ -61,8 +285,87 @@ public class BookServiceImpl implements BookService {
         return repository.findAll(example, pgRequest);
     }
 
+    /**
+     * Ranked ids come from the in-memory index; only the requested page is
+     * loaded, in one IN query, and put back in ranking order.
+     */
+    private Page<Book> findIndexed(Book filter, Pageable pgRequest) {
+        BookSearchIndex.SearchResult result = searchIndex.search(filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+                pgRequest.getOffset(), pgRequest.getPageSize());
+
+        Map<Long, Book> byId = repository.findAllById(result.getIds()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> content = result.getIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pgRequest, result.getTotal());
+    }
+
+    /**
+     * The index only knows title, author and isbn; a filter on anything else
+     * goes to the database.
+     */
+    private static boolean hasCriteria(Book filter) {
+        return (filter.getTitle() != null || filter.getAuthor() != null || filter.getIsbn() != null)
+                && filter.getLoanPeriodDays() == null;
+    }
+
+    /**
+     * Seek pagination on the primary key: the cost of a page does not depend
+     * on how deep it is, and no count query is issued.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findAfter(Book filter, Long after, int size) {
+        return repository.findSliceAfter(after, filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+                filter.getLoanPeriodDays(), PageRequest.of(0, size));
+    }
+
+    /**
+     * Cache misses are read from the primary, like {@link #getById(Long)}: a
+     * replica that lags behind would otherwise keep a stale or deleted book
+     * cached for the whole TTL.
+     */
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return cache.getByIsbn(isbn, key -> transactionTemplate.execute(status -> repository.findByIsbn(key)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Book> getBooksByIsbn(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return repository.findByIsbnIn(isbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+    }
+
+    /**
+     * Walks the matching books through a forward-only cursor. The persistence
+     * context is cleared every fetch batch, so memory stays flat for any size.
+     * The rows are not put into the second-level cache: a cursor is read lazily,
+     * past the point where a query hint still applies, so the session cache
+     * mode is switched for the walk instead.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Book filter, Consumer<Book> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        try (Stream<Book> books = repository.streamAll(filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+                filter.getLoanPeriodDays())) {
+            int[] rows = {0};
+            books.forEach(book -> {
+                consumer.accept(book);
+                if (++rows[0] % BookRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            });
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
     }
 }
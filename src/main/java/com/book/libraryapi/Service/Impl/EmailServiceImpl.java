@@ -1,32 +1,43 @@
 package com.book.libraryapi.Service.Impl;
 
+import com.book.libraryapi.Model.MailOutbox;
+import com.book.libraryapi.Model.MailOutboxStatus;
+import com.book.libraryapi.Repository.MailOutboxRepository;
 import com.book.libraryapi.Service.EmailService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Writes one outbox row per recipient in the caller's transaction; the
+ * actual SMTP delivery happens later in {@link com.book.libraryapi.Service.MailOutboxDispatcher}.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    @Value("${application.mail.default-remetent}")
-    private String remetent;
-    private final JavaMailSender jvMailSender;
+    public static final String LATE_LOAN_SUBJECT = "Livro com empréstimo atrasado!";
+
+    private final MailOutboxRepository outboxRepository;
 
     @Override
+    @Transactional
     public void sendMails(String msg, List<String> mailsList) {
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
-
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com empréstimo atrasado!");
-        mailMessage.setText(msg);
-        mailMessage.setTo(mails);
-
-        jvMailSender.send(mailMessage);
+        LocalDateTime now = LocalDateTime.now();
+        List<MailOutbox> entries = mailsList.stream()
+                .map(mail -> MailOutbox.builder()
+                        .recipient(mail)
+                        .subject(LATE_LOAN_SUBJECT)
+                        .text(msg)
+                        .status(MailOutboxStatus.PENDING)
+                        .createdAt(now)
+                        .nextAttemptAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        outboxRepository.saveAll(entries);
     }
 }
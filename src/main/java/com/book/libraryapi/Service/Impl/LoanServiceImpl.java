@@ -1,61 +1,329 @@
 package com.book.libraryapi.Service.Impl;
 
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Dto.LoanFilterDTO;
+import com.book.libraryapi.Dto.ReturnedLoanDTO;
 import com.book.libraryapi.Exception.BusinessException;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Model.LoanArchive;
 import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanArchiveRepository;
 import com.book.libraryapi.Repository.LoanRepository;
+import com.book.libraryapi.Repository.OffsetPageRequest;
+import com.book.libraryapi.Service.LoanPeriodPolicy;
 import com.book.libraryapi.Service.LoanService;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    private static final String BOOK_ALREADY_LOANED = "Book already loaned";
+    private static final String LOAN_ALREADY_RETURNED = "Loan already returned";
+
     private LoanRepository repository;
+    private LoanArchiveRepository archiveRepository;
+    private BookRepository bookRepository;
+    private EntityManager entityManager;
+    private LoanPeriodPolicy periodPolicy;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, LoanArchiveRepository archiveRepository,
+                           BookRepository bookRepository, EntityManager entityManager, LoanPeriodPolicy periodPolicy) {
         this.repository = repository;
+        this.archiveRepository = archiveRepository;
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.periodPolicy = periodPolicy;
     }
 
+    /**
+     * The book is claimed with a conditional update on its active loan column,
+     * a primary key lookup whose cost does not depend on the book's history.
+     * Losing the claim rolls back the loan insert.
+     */
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())){
-            throw new BusinessException("Book already loaned");
+        assignDueDate(loan);
+        Loan saved = repository.save(loan);
+        if (bookRepository.claimForLoan(loan.getBook().getId(), saved.getId()) == 0) {
+            throw new BusinessException(BOOK_ALREADY_LOANED);
         }
-        return repository.save(loan);
+        return saved;
     }
 
+    /**
+     * Bulk checkout with the same rule as {@link #save(Loan)}: the loans are
+     * inserted and the books claimed in JDBC batches, then the loans whose
+     * book was already taken are deleted again in one statement.
+     */
     @Override
+    @Transactional
+    public List<BatchItemResultDTO> saveAll(List<Loan> loans) {
+        Set<Long> loaned = new HashSet<>();
+        List<Loan> toInsert = new ArrayList<>();
+        List<BatchItemResultDTO> results = new ArrayList<>(loans.size());
+        for (int i = 0; i < loans.size(); i++) {
+            Loan loan = loans.get(i);
+            BatchItemResultDTO result = BatchItemResultDTO.builder()
+                    .index(i)
+                    .isbn(loan.getBook().getIsbn())
+                    .build();
+            if (loaned.add(loan.getBook().getId())) {
+                assignDueDate(loan);
+                toInsert.add(loan);
+                result.setStatus(BatchItemResultDTO.Status.CREATED);
+            } else {
+                result.setStatus(BatchItemResultDTO.Status.FAILED);
+                result.setErros(Collections.singletonList(BOOK_ALREADY_LOANED));
+            }
+            results.add(result);
+        }
+        if (toInsert.isEmpty()) {
+            return results;
+        }
+
+        repository.saveAllAndFlush(toInsert);
+        int[] claimed = bookRepository.claimForLoans(
+                toInsert.stream().map(loan -> loan.getBook().getId()).collect(Collectors.toList()),
+                toInsert.stream().map(Loan::getId).collect(Collectors.toList()));
+        Set<Long> lost = new HashSet<>();
+        for (int j = 0; j < claimed.length; j++) {
+            if (claimed[j] == 0) {
+                lost.add(toInsert.get(j).getId());
+            }
+        }
+        if (!lost.isEmpty()) {
+            repository.deleteAllByIdInBatch(lost);
+        }
+
+        results.forEach(result -> {
+            Loan loan = loans.get(result.getIndex());
+            if (result.getStatus() != BatchItemResultDTO.Status.CREATED) {
+                return;
+            }
+            if (lost.contains(loan.getId())) {
+                result.setStatus(BatchItemResultDTO.Status.FAILED);
+                result.setErros(Collections.singletonList(BOOK_ALREADY_LOANED));
+            } else {
+                result.setId(loan.getId());
+            }
+        });
+        return results;
+    }
+
+    private void assignDueDate(Loan loan) {
+        if (loan.getDueDate() == null) {
+            loan.setDueDate(periodPolicy.dueDate(loan));
+        }
+    }
+
+    /**
+     * Read-write on purpose: the loan is looked up to be returned, so it must
+     * come from the primary rather than a replica that may lag behind.
+     */
+    @Override
+    @Transactional
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
+    /**
+     * A returned loan stays returned: its book may already be held by another
+     * loan, so reopening it would leave two open loans for one copy. The check
+     * reads the stored flag, since the loan passed in may be the managed
+     * instance the caller already changed.
+     */
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        if (!isReturned(loan) && loan.getId() != null
+                && repository.findStoredReturnedById(loan.getId()).orElse(false)) {
+            throw new BusinessException(LOAN_ALREADY_RETURNED);
+        }
+        Loan saved = repository.save(loan);
+        if (isReturned(saved)) {
+            bookRepository.releaseLoans(Collections.singletonList(saved.getId()));
+        }
+        return saved;
     }
 
+    /**
+     * Bulk return: the loans are loaded with one query and the changed return
+     * flags are flushed as batched updates when the transaction commits.
+     * Reopening a returned loan is refused, as in {@link #update(Loan)}.
+     */
     @Override
+    @Transactional
+    public List<BatchItemResultDTO> returnAll(List<ReturnedLoanDTO> returns) {
+        Set<Long> ids = returns.stream().map(ReturnedLoanDTO::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Loan> loans = ids.isEmpty() ? Collections.emptyMap()
+                : repository.findAllById(ids).stream().collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        List<BatchItemResultDTO> results = new ArrayList<>(returns.size());
+        for (int i = 0; i < returns.size(); i++) {
+            ReturnedLoanDTO dto = returns.get(i);
+            Loan loan = dto.getId() == null ? null : loans.get(dto.getId());
+            BatchItemResultDTO result = BatchItemResultDTO.builder().index(i).id(dto.getId()).build();
+            if (loan == null) {
+                result.setStatus(BatchItemResultDTO.Status.NOT_FOUND);
+                result.setErros(Collections.singletonList("Loan not found"));
+            } else if (isReturned(loan) && !Boolean.TRUE.equals(dto.getReturned())) {
+                result.setStatus(BatchItemResultDTO.Status.FAILED);
+                result.setErros(Collections.singletonList(LOAN_ALREADY_RETURNED));
+            } else {
+                loan.setReturned(dto.getReturned());
+                result.setStatus(BatchItemResultDTO.Status.UPDATED);
+            }
+            results.add(result);
+        }
+
+        List<Long> returned = loans.values().stream()
+                .filter(this::isReturned)
+                .map(Loan::getId)
+                .collect(Collectors.toList());
+        if (!returned.isEmpty()) {
+            bookRepository.releaseLoans(returned);
+        }
+        return results;
+    }
+
+    private boolean isReturned(Loan loan) {
+        return Boolean.TRUE.equals(loan.getReturned());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
+        if (filterDTO.isIncludeArchive()) {
+            return withArchive(pageable,
+                    page -> repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), page),
+                    page -> archiveRepository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), page),
+                    () -> archiveRepository.countByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer()));
+        }
         return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
     }
 
     @Override
-    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<Loan> findAfter(LoanFilterDTO filterDTO, Long after, int size) {
+        return repository.findSliceByBookIsbnOrCustomerAfter(after, filterDTO.getIsbn(), filterDTO.getCustomer(),
+                PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Loan> getLoansByBook(Book book, Pageable pageable, boolean includeArchive) {
+        if (includeArchive) {
+            return withArchive(pageable,
+                    page -> repository.findByBook(book, page),
+                    page -> archiveRepository.findByBook(book, page),
+                    () -> archiveRepository.countByBook(book));
+        }
         return repository.findByBook(book, pageable);
     }
 
+    /**
+     * Pages over the hot loans followed by the archived ones. The sort applies
+     * within each tier. The archive is only read when the hot page comes up
+     * short, and only counted when the total cannot be told from the page.
+     */
+    private Page<Loan> withArchive(Pageable pageable,
+                                   Function<Pageable, Page<Loan>> hot,
+                                   Function<Pageable, List<LoanArchive>> archive,
+                                   LongSupplier archiveCount) {
+        Page<Loan> hotPage = hot.apply(pageable);
+        long hotTotal = hotPage.getTotalElements();
+        List<Loan> content = new ArrayList<>(hotPage.getContent());
+        int missing = pageable.getPageSize() - content.size();
+        if (missing > 0) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - hotTotal);
+            archive.apply(new OffsetPageRequest(archiveOffset, missing, pageable.getSort())).stream()
+                    .map(LoanArchive::toLoan)
+                    .forEach(content::add);
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> hotTotal + archiveCount.getAsLong());
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllLateLoans() {
-        final Integer LoansDays = 4;
-        LocalDate threDaysAgo = LocalDate.now().minusDays(LoansDays);
-        return repository.findByLoanDateLessThanAndNotReturned(threDaysAgo);
+        return repository.findOverdue(LocalDate.now());
+    }
+
+    /**
+     * Moves the ACTIVE loans past their due date to OVERDUE, then walks the
+     * OVERDUE ones in index order, one keyset page at a time, so only a single
+     * chunk is held in memory no matter how many loans are overdue.
+     */
+    @Override
+    public void forEachLateLoanChunk(int chunkSize, Consumer<List<Loan>> consumer) {
+        repository.markOverdue(LocalDate.now());
+        Optional<LocalDate> earliest = repository.findEarliestOverdueDueDate();
+        if (!earliest.isPresent()) {
+            return;
+        }
+        PageRequest limit = PageRequest.of(0, chunkSize);
+        LocalDate lastDueDate = earliest.get();
+        Long lastId = 0L;
+        List<Loan> chunk;
+        do {
+            chunk = repository.findOverdueAfter(lastDueDate, lastId, limit);
+            if (!chunk.isEmpty()) {
+                consumer.accept(chunk);
+                Loan last = chunk.get(chunk.size() - 1);
+                lastDueDate = last.getDueDate();
+                lastId = last.getId();
+            }
+        } while (chunk.size() == chunkSize);
+    }
+
+    /**
+     * Same cursor-based walk as {@link BookServiceImpl#exportAll}; the book of
+     * each loan comes from the fetch join, so no lazy load happens per row,
+     * and the books read are kept out of the second-level cache.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(LoanFilterDTO filterDTO, Consumer<Loan> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        try (Stream<Loan> loans = repository.streamByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer())) {
+            int[] rows = {0};
+            loans.forEach(loan -> {
+                consumer.accept(loan);
+                if (++rows[0] % BookRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            });
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
     }
 }
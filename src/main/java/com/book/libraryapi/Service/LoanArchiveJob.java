@@ -0,0 +1,77 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Repository.LoanArchiveRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves loans returned more than {@code application.loans.archive.age-days}
+ * ago from {@code loan} to {@code loan_archive}, so the hot table and its
+ * indexes only hold open and recent loans. Each chunk is copied and deleted in one transaction; a run
+ * that stops halfway leaves every loan in exactly one table and the next run
+ * carries on.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(value = "application.loans.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class LoanArchiveJob {
+
+    private final LoanRepository loanRepository;
+    private final LoanArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archived;
+
+    @Value("${application.loans.archive.age-days:365}")
+    private int ageDays;
+
+    @Value("${application.loans.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    public LoanArchiveJob(LoanRepository loanRepository,
+                          LoanArchiveRepository archiveRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry registry) {
+        this.loanRepository = loanRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archived = registry.counter("loans.archived");
+    }
+
+    @Scheduled(cron = "${application.loans.archive.cron:0 30 1 * * ?}")
+    public void archive() {
+        long start = System.currentTimeMillis();
+        LocalDate cutoff = LocalDate.now().minusDays(ageDays);
+        PageRequest limit = PageRequest.of(0, chunkSize);
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = loanRepository.findArchivableIds(cutoff, limit);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archiveRepository.copyFromLoans(ids, LocalDateTime.now());
+                loanRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            total += moved;
+            archived.increment(moved);
+        } while (moved == chunkSize);
+
+        log.info("Loan archive job finished: loans={} cutoff={} elapsedMs={}",
+                total, cutoff, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,77 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Gives loans created before due dates existed a due date and a status, once
+ * the application is up. Each chunk commits on its own, and only rows still
+ * missing a due date are read, so an interrupted run simply resumes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "application.loans.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class LoanDueDateBackfill {
+
+    private final LoanRepository repository;
+    private final LoanPeriodPolicy periodPolicy;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.loans.backfill.chunk-size:500}")
+    private int chunkSize;
+
+    public LoanDueDateBackfill(LoanRepository repository,
+                               LoanPeriodPolicy periodPolicy,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.periodPolicy = periodPolicy;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        PageRequest limit = PageRequest.of(0, chunkSize);
+        long updated = 0;
+        Long lastId = 0L;
+        List<Loan> chunk;
+        do {
+            Long after = lastId;
+            chunk = transactionTemplate.execute(status -> {
+                List<Loan> loans = repository.findWithoutDueDateAfter(after, limit);
+                loans.forEach(loan -> {
+                    loan.setDueDate(periodPolicy.dueDate(loan));
+                    loan.setStatus(Loan.statusFor(loan.getReturned(), loan.getDueDate(), today));
+                });
+                entityManager.flush();
+                entityManager.clear();
+                return loans;
+            });
+            if (!chunk.isEmpty()) {
+                updated += chunk.size();
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == chunkSize);
+
+        if (updated > 0) {
+            log.info("Loan due date backfill finished: loans={} elapsedMs={}", updated, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Decides how long a loan may last: the book's own period when it has one,
+ * then the customer's (keyed by e-mail in
+ * {@code application.loans.customer-period-days}), then the default.
+ * A loan is overdue once its due date is in the past.
+ */
+@Component
+public class LoanPeriodPolicy {
+
+    private final int defaultDays;
+    private final Map<String, Integer> customerDays;
+
+    public LoanPeriodPolicy(@Value("${application.loans.period-days:3}") int defaultDays,
+                            @Value("#{${application.loans.customer-period-days:{:}}}") Map<String, Integer> customerDays) {
+        this.defaultDays = defaultDays;
+        this.customerDays = customerDays;
+    }
+
+    public int periodDays(Book book, String customerEmail) {
+        if (book != null && book.getLoanPeriodDays() != null) {
+            return book.getLoanPeriodDays();
+        }
+        if (customerEmail != null) {
+            Integer days = customerDays.get(customerEmail);
+            if (days != null) {
+                return days;
+            }
+        }
+        return defaultDays;
+    }
+
+    public LocalDate dueDate(Loan loan) {
+        LocalDate loanDate = loan.getLoanDate() != null ? loan.getLoanDate() : LocalDate.now();
+        return loanDate.plusDays(periodDays(loan.getBook(), loan.getCustomerEmail()));
+    }
+}
@@ -1,24 +1,38 @@
 package com.book.libraryapi.Service;
 
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Dto.LoanFilterDTO;
+import com.book.libraryapi.Dto.ReturnedLoanDTO;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LoanService {
     Loan save(Loan loan);
 
+    List<BatchItemResultDTO> saveAll(List<Loan> loans);
+
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    List<BatchItemResultDTO> returnAll(List<ReturnedLoanDTO> returns);
+
     Page<Loan> find(LoanFilterDTO filterDTO, Pageable pgRequest);
 
-    Page<Loan> getLoansByBook(Book book, Pageable pageable);
+    Slice<Loan> findAfter(LoanFilterDTO filterDTO, Long after, int size);
+
+    Page<Loan> getLoansByBook(Book book, Pageable pageable, boolean includeArchive);
 
     List<Loan> getAllLateLoans();
+
+    void forEachLateLoanChunk(int chunkSize, Consumer<List<Loan>> consumer);
+
+    void exportAll(LoanFilterDTO filterDTO, Consumer<Loan> consumer);
 }
@@ -0,0 +1,213 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.MailOutbox;
+import com.book.libraryapi.Model.MailOutboxStatus;
+import com.book.libraryapi.Repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the mail outbox in batches on a dedicated worker pool. Claimed rows are
+ * leased for a while so rows left in SENDING by a crashed run are picked up again.
+ * <p>
+ * The scheduler thread only claims and hands rows to the pool; it never waits for
+ * SMTP, so a hung server cannot hold up the other scheduled jobs. Rows still being
+ * sent by this node are kept out of the next claims, SMTP timeouts must fit in the
+ * lease, and claims and results are written against the row version, so a row
+ * re-claimed elsewhere after its lease expired is not overwritten by a stale result.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(value = "application.mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class MailOutboxDispatcher {
+
+    private static final List<MailOutboxStatus> CLAIMABLE = Arrays.asList(MailOutboxStatus.PENDING, MailOutboxStatus.SENDING);
+
+    private final MailOutboxRepository repository;
+    private final JavaMailSender mailSender;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Long> sending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong depth = new AtomicLong();
+    private final Timer deliveryLatency;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter lostClaims;
+    private final long leaseMs;
+
+    @Value("${application.mail.default-remetent}")
+    private String remetent;
+
+    @Value("${application.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${application.mail.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${application.mail.outbox.backoff-ms:30000}")
+    private long backoffMs;
+
+    public MailOutboxDispatcher(MailOutboxRepository repository,
+                                JavaMailSender mailSender,
+                                @Qualifier("mailOutboxExecutor") ThreadPoolTaskExecutor executor,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry registry,
+                                @Value("${application.mail.outbox.lease-ms:300000}") long leaseMs,
+                                @Value("${spring.mail.properties.mail.smtp.connectiontimeout:0}") long connectTimeoutMs,
+                                @Value("${spring.mail.properties.mail.smtp.timeout:0}") long readTimeoutMs,
+                                @Value("${spring.mail.properties.mail.smtp.writetimeout:0}") long writeTimeoutMs) {
+        // 0 means "wait forever" to JavaMail: a send could then outlive its lease
+        if (connectTimeoutMs <= 0 || readTimeoutMs <= 0 || writeTimeoutMs <= 0
+                || connectTimeoutMs + readTimeoutMs + writeTimeoutMs >= leaseMs) {
+            throw new IllegalStateException("spring.mail.properties.mail.smtp.connectiontimeout, timeout and"
+                    + " writetimeout must be set and add up to less than application.mail.outbox.lease-ms");
+        }
+        this.leaseMs = leaseMs;
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("mail.outbox.depth", depth, AtomicLong::get)
+                .description("Outbox entries waiting to be delivered")
+                .register(registry);
+        this.deliveryLatency = Timer.builder("mail.outbox.delivery")
+                .description("Time from enqueue to successful delivery")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.sent = registry.counter("mail.outbox.sent");
+        this.retried = registry.counter("mail.outbox.retried");
+        this.failed = registry.counter("mail.outbox.failed");
+        this.lostClaims = registry.counter("mail.outbox.lost.claims");
+    }
+
+    @Scheduled(fixedDelayString = "${application.mail.outbox.poll-interval-ms:5000}",
+            initialDelayString = "${application.mail.outbox.poll-interval-ms:5000}")
+    public void drain() {
+        dispatch();
+    }
+
+    /**
+     * Claims up to {@code batchSize} rows minus those still being sent and hands
+     * them to the worker pool; the returned future completes once they are sent.
+     */
+    public CompletableFuture<Void> dispatch() {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        List<MailOutbox> batch;
+        int capacity;
+        do {
+            capacity = batchSize - sending.size();
+            if (capacity <= 0) {
+                break;
+            }
+            batch = claimBatch(capacity);
+            for (MailOutbox entry : batch) {
+                sending.add(entry.getId());
+                deliveries.add(CompletableFuture.runAsync(() -> deliver(entry), executor)
+                        .whenComplete((ignored, ex) -> sending.remove(entry.getId())));
+            }
+        } while (batch.size() == capacity);
+
+        depth.set(repository.countByStatus(MailOutboxStatus.PENDING));
+        return CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0]));
+    }
+
+    private List<MailOutbox> claimBatch(int size) {
+        // rows this node is still sending stay out even if their lease has run out
+        Collection<Long> excluded = sending.isEmpty() ? Collections.singleton(-1L) : new ArrayList<>(sending);
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<MailOutbox> due = repository.findDue(CLAIMABLE, now, excluded, PageRequest.of(0, size));
+                due.forEach(entry -> {
+                    entry.setStatus(MailOutboxStatus.SENDING);
+                    entry.setNextAttemptAt(now.plus(Duration.ofMillis(leaseMs)));
+                });
+                return repository.saveAll(due);
+            });
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            // another node claimed some of these rows first; try again on the next poll
+            log.debug("Outbox claim lost to a concurrent dispatcher", ex);
+            return Collections.emptyList();
+        }
+    }
+
+    private void deliver(MailOutbox entry) {
+        try {
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setFrom(remetent);
+            mailMessage.setSubject(entry.getSubject());
+            mailMessage.setText(entry.getText());
+            mailMessage.setTo(entry.getRecipient());
+            mailSender.send(mailMessage);
+
+            LocalDateTime now = LocalDateTime.now();
+            entry.setStatus(MailOutboxStatus.SENT);
+            entry.setSentAt(now);
+            entry.setLastError(null);
+            deliveryLatency.record(Duration.between(entry.getCreatedAt(), now));
+            sent.increment();
+        } catch (RuntimeException ex) {
+            scheduleRetry(entry, ex);
+        }
+        entry.setAttempts(entry.getAttempts() + 1);
+        try {
+            repository.save(entry);
+        } catch (ObjectOptimisticLockingFailureException ex) {
+            lostClaims.increment();
+            log.warn("Outbox entry {} was re-claimed while being sent; its result is discarded", entry.getId());
+        }
+    }
+
+    private void scheduleRetry(MailOutbox entry, RuntimeException ex) {
+        int attempt = entry.getAttempts() + 1;
+        entry.setLastError(abbreviate(ex.getMessage()));
+        if (attempt >= maxAttempts) {
+            entry.setStatus(MailOutboxStatus.FAILED);
+            failed.increment();
+            log.error("Giving up on outbox entry {} after {} attempts", entry.getId(), attempt, ex);
+            return;
+        }
+        long delay = backoffMs * (1L << Math.min(attempt - 1, 16));
+        entry.setStatus(MailOutboxStatus.PENDING);
+        entry.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(delay)));
+        retried.increment();
+        log.warn("Outbox entry {} failed on attempt {}, retrying in {} ms", entry.getId(), attempt, delay);
+    }
+
+    private String abbreviate(String message) {
+        if (message == null || message.length() <= 1000) {
+            return message;
+        }
+        return message.substring(0, 1000);
+    }
+}
@@ -1,14 +1,24 @@
 package com.book.libraryapi.Service;
 
 import com.book.libraryapi.Model.Loan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
@@ -17,17 +27,72 @@ public class ScheduleService {
 
     private final LoanService loanService;
     private final EmailService emailService;
+    private final MeterRegistry registry;
 
     @Value("${application.mail.lateloans.message}")
     private String msg;
 
+    @Value("${application.mail.lateloans.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${application.mail.lateloans.parallelism:4}")
+    private int parallelism;
+
     @Scheduled(cron = CRON_SCHEDULED)
     public void sendMailToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
+        Timer.Sample job = Timer.start(registry);
+        Timer sendTimer = registry.timer("mail.lateloans.send");
+        Counter recipients = registry.counter("mail.lateloans.recipients");
+        Counter failures = registry.counter("mail.lateloans.failed.chunks");
+        long start = System.nanoTime();
+        AtomicLong loans = new AtomicLong();
+        AtomicLong chunks = new AtomicLong();
+        AtomicLong failedChunks = new AtomicLong();
+
+        // Bounded queue + caller-runs: the reader blocks when the mail stage
+        // falls behind, so at most parallelism * 2 + 1 chunks are in memory.
+        ThreadPoolExecutor mailStage = new ThreadPoolExecutor(parallelism, parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            loanService.forEachLateLoanChunk(chunkSize, chunk -> {
+                List<String> mailsList = chunk.stream()
+                        .map(Loan::getCustomerEmail)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                loans.addAndGet(chunk.size());
+                chunks.incrementAndGet();
+                if (mailsList.isEmpty()) {
+                    return;
+                }
+                mailStage.execute(() -> {
+                    try {
+                        sendTimer.record(() -> emailService.sendMails(msg, mailsList));
+                        recipients.increment(mailsList.size());
+                    } catch (RuntimeException ex) {
+                        failedChunks.incrementAndGet();
+                        failures.increment();
+                        log.error("Failed to send late loan mails for a chunk of {} recipients", mailsList.size(), ex);
+                    }
+                });
+            });
+        } finally {
+            mailStage.shutdown();
+            awaitMailStage(mailStage);
+        }
+
+        job.stop(registry.timer("mail.lateloans.job"));
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Late loans job finished: loans={} chunks={} failedChunks={} elapsedMs={} loansPerSecond={}",
+                loans.get(), chunks.get(), failedChunks.get(), elapsedMs, loans.get() * 1000 / elapsedMs);
+    }
 
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
-        emailService.sendMails(msg, mailsList);
+    private void awaitMailStage(ThreadPoolExecutor mailStage) {
+        try {
+            mailStage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
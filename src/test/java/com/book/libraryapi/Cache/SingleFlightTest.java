@@ -0,0 +1,149 @@
+package com.book.libraryapi.Cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class SingleFlightTest {
+
+    static final int FOLLOWERS = 3;
+
+    SimpleMeterRegistry registry;
+    ExecutorService pool;
+    AtomicInteger calls;
+    CountDownLatch release;
+
+    @BeforeEach
+    public void setUp(){
+        this.registry = new SimpleMeterRegistry();
+        this.pool = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        this.calls = new AtomicInteger();
+        this.release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Compartilhar uma única chamada entre chamadas concorrentes idênticas")
+    public void testConcurrentCallsShareOneCall() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 10000, registry);
+
+        List<Future<String>> results = startLeaderAndFollowers(flight, () -> "livro");
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get()).isEqualTo("livro");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(registry.get("lookups.coalesced").tag("lookup", "test").counter().count()).isEqualTo(FOLLOWERS);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Propagar a exceção da chamada para todas as chamadas que aguardavam")
+    public void testErrorIsPropagatedToEveryCaller() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 10000, registry);
+
+        List<Future<String>> results = startLeaderAndFollowers(flight, () -> {
+            throw new IllegalStateException("banco indisponível");
+        });
+        release.countDown();
+
+        for (Future<String> result : results) {
+            Throwable ex = Assertions.catchThrowable(result::get);
+            assertThat(ex).isInstanceOf(ExecutionException.class);
+            assertThat(ex.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("banco indisponível");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(flight.inFlight()).isZero();
+
+        // a failed call is not remembered
+        assertThat(flight.execute("isbn", () -> "livro")).isEqualTo("livro");
+    }
+
+    @Test
+    @DisplayName("Executar a própria chamada quando a espera expirar")
+    public void testWaiterRunsItsOwnCallAfterTimeout() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 50, registry);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> flight.execute("isbn", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "lento";
+        }));
+        leaderStarted.await();
+
+        assertThat(flight.execute("isbn", () -> "próprio")).isEqualTo("próprio");
+        assertThat(registry.get("lookups.coalesce.timeouts").tag("lookup", "test").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get()).isEqualTo("lento");
+    }
+
+    /**
+     * Starts a leader blocked on {@code release} and, once it is in flight,
+     * followers for the same key; returns after every follower is waiting.
+     */
+    private List<Future<String>> startLeaderAndFollowers(SingleFlight<String, String> flight,
+                                                         Supplier<String> result) throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(() -> flight.execute("isbn", () -> {
+            calls.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return result.get();
+        })));
+        leaderStarted.await();
+
+        List<Thread> followers = new CopyOnWriteArrayList<>();
+        CountDownLatch followersStarted = new CountDownLatch(FOLLOWERS);
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(pool.submit(() -> {
+                followers.add(Thread.currentThread());
+                followersStarted.countDown();
+                return flight.execute("isbn", () -> {
+                    calls.incrementAndGet();
+                    return "duplicada";
+                });
+            }));
+        }
+        followersStarted.await();
+        while (!followers.stream().allMatch(t -> t.getState() == Thread.State.TIMED_WAITING)) {
+            Thread.sleep(5);
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.book.libraryapi.Config;
+
+import com.book.libraryapi.Service.Impl.BookServiceImpl;
+import com.book.libraryapi.Service.LoanArchiveJob;
+import com.book.libraryapi.Service.ScheduleService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles({"test", "fast-startup"})
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StartupConfigTest {
+
+    static final String SPEC = "{\"swagger\":\"2.0\"}";
+
+    @TempDir
+    static Path docs;
+
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Autowired
+    MockMvc mvc;
+
+    @DynamicPropertySource
+    static void specLocation(DynamicPropertyRegistry registry) {
+        registry.add("application.docs.spec-location", () -> docs.resolve("api-docs.json").toUri().toString());
+    }
+
+    @Test
+    @DisplayName("Manter eagers apenas os beans com tarefas agendadas e os controllers")
+    public void testOnlyScheduledAndControllerBeansStayEager(){
+        assertThat(StartupConfig.hasScheduledMethods(LoanArchiveJob.class)).isTrue();
+        assertThat(StartupConfig.hasScheduledMethods(ScheduleService.class)).isTrue();
+        assertThat(StartupConfig.hasScheduledMethods(BookServiceImpl.class)).isFalse();
+
+        assertThat(context.getBeanFactory().getBeanDefinition("loanArchiveJob").isLazyInit()).isFalse();
+        assertThat(context.getBeanFactory().getBeanDefinition("bookController").isLazyInit()).isFalse();
+        assertThat(context.getBeanFactory().getBeanDefinition("dtoMapper").isLazyInit()).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("loanArchiveJob")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não escanear a documentação da API no perfil de inicialização rápida")
+    public void testSwaggerIsNotScannedOnFastStartup(){
+        assertThat(context.getBeanNamesForType(Docket.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(SwaggerConfig.class)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Servir a documentação gerada no build quando o springfox não escaneia")
+    public void testServesGeneratedApiDocs() throws Exception {
+        mvc.perform(get("/v2/api-docs"))
+                .andExpect(status().isNotFound());
+
+        Files.write(docs.resolve("api-docs.json"), SPEC.getBytes(StandardCharsets.UTF_8));
+
+        mvc.perform(get("/v2/api-docs"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(SPEC));
+        mvc.perform(get("/swagger-resources"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("[0].location").value("/v2/api-docs"));
+        mvc.perform(get("/configuration/ui"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,45 @@
+package com.book.libraryapi.Config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Detectar threads virtuais apenas em JVMs que as suportam")
+    public void testSupportFollowsRuntimeVersion() throws Exception {
+        boolean expected = Runtime.version().feature() >= 21;
+
+        assertThat(VirtualThreads.isSupported()).isEqualTo(expected);
+        assertThat(VirtualThreads.newPerTaskExecutor("test-").isPresent()).isEqualTo(expected);
+
+        if (expected) {
+            ExecutorService executor = VirtualThreads.newPerTaskExecutor("test-").get();
+            Future<String> name = executor.submit(() -> Thread.currentThread().getName());
+            assertThat(name.get()).startsWith("test-");
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Falhar na inicialização do modo virtual em JVMs sem threads virtuais")
+    public void testVirtualModeFailsWithoutSupport() {
+        new ApplicationContextRunner()
+                .withPropertyValues("application.threads.mode=virtual")
+                .withUserConfiguration(ThreadingConfig.class)
+                .run(context -> {
+                    if (VirtualThreads.isSupported()) {
+                        assertThat(context).hasNotFailed();
+                    } else {
+                        assertThat(context).hasFailed();
+                        assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalStateException.class);
+                    }
+                });
+    }
+}
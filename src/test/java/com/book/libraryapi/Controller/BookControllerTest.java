@@ -1,15 +1,18 @@
 package com.book.libraryapi.Controller;
 
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Dto.BookDTO;
 import com.book.libraryapi.Exception.BusinessException;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Service.BookService;
 import com.book.libraryapi.Service.LoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +22,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,8 +32,12 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -270,6 +279,193 @@ public class BookControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Consulta de livros paginada por cursor.")
+    public void testFindBooksAfterCursor() throws Exception {
+        Book book = Book.builder()
+                .id(7L)
+                .author(createNewBook().getAuthor())
+                .title(createNewBook().getTitle())
+                .isbn(createNewBook().getIsbn())
+                .build();
+
+        BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.eq(5L), Mockito.eq(1)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_URL.concat("?title=Rodando&size=1&after=" + CursorToken.encode(5L)))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(7))
+                .andExpect(jsonPath("hasNext").value(true))
+                .andExpect(jsonPath("next").value(CursorToken.encode(7L)))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Criar livros em lote, validando cada item")
+    @SuppressWarnings("unchecked")
+    public void testCreateBooksInBatch() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(createNewBook(), new BookDTO(), createNewBook()));
+        BDDMockito.given(service.saveAll(Mockito.anyList())).willAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            return Arrays.asList(
+                    BatchItemResultDTO.builder().index(0).status(BatchItemResultDTO.Status.CREATED).id(1L).isbn(books.get(0).getIsbn()).build(),
+                    BatchItemResultDTO.builder().index(1).status(BatchItemResultDTO.Status.DUPLICATE).isbn(books.get(1).getIsbn()).build());
+        });
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_URL.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].erros", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[2].status").value("DUPLICATE"));
+
+        ArgumentCaptor<List<Book>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(service).saveAll(captor.capture());
+        Assertions.assertThat(captor.getValue()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Criar livros em lote a partir de NDJSON")
+    public void testCreateBooksFromNdjson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String body = objectMapper.writeValueAsString(createNewBook()) + "\n" + objectMapper.writeValueAsString(createNewBook()) + "\n";
+        BDDMockito.given(service.saveAll(Mockito.anyList())).willReturn(Arrays.asList(
+                BatchItemResultDTO.builder().index(0).status(BatchItemResultDTO.Status.CREATED).id(1L).build(),
+                BatchItemResultDTO.builder().index(1).status(BatchItemResultDTO.Status.DUPLICATE).build()));
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_URL.concat("/batch"))
+                        .contentType("application/x-ndjson")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(jsonPath("$[1].status").value("DUPLICATE"));
+
+        mvc.perform(MockMvcRequestBuilders.post(BOOK_URL.concat("/batch"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"title\": "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Exportar livros em CSV")
+    @SuppressWarnings("unchecked")
+    public void testExportBooksAsCsv() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(1);
+            consumer.accept(Book.builder().id(1L).title("Rodando, o Mundo").author("João").isbn("2509").build());
+            consumer.accept(Book.builder().id(2L).title("Outro").author("Maria").isbn("2510").loanPeriodDays(7).build());
+            return null;
+        }).when(service).exportAll(Mockito.any(Book.class), Mockito.any(Consumer.class));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_URL.concat("/export?format=csv&author=a")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("id,title,author,isbn,loanPeriodDays\r\n"
+                        + "1,\"Rodando, o Mundo\",João,2509,\r\n"
+                        + "2,Outro,Maria,2510,7\r\n"));
+
+        ArgumentCaptor<Book> filter = ArgumentCaptor.forClass(Book.class);
+        Mockito.verify(service).exportAll(filter.capture(), Mockito.any(Consumer.class));
+        Assertions.assertThat(filter.getValue().getAuthor()).isEqualTo("a");
+    }
+
+    @Test
+    @DisplayName("Recusar formato de exportação desconhecido")
+    public void testExportBooksWithUnknownFormat() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_URL.concat("/export?format=xml")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Responder 304 pela versão do livro, sem carregá-lo")
+    public void testGetBookNotModified() throws Exception {
+        BDDMockito.given(service.getVersion(1L)).willReturn(Optional.of(3L));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_URL.concat("/1")).header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(service, Mockito.never()).getById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Retornar o livro com ETag quando a versão mudou")
+    public void testGetBookModified() throws Exception {
+        BDDMockito.given(service.getVersion(1L)).willReturn(Optional.of(4L));
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(
+                Book.builder().id(1L).title("Titulo").author("Autor").isbn("2509").version(4L).build()));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_URL.concat("/1")).header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("isbn").value("2509"));
+    }
+
+    @Test
+    @DisplayName("Recusar atualização quando o If-Match não confere com a versão atual")
+    public void testUpdateBookWithStaleIfMatch() throws Exception {
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(
+                Book.builder().id(1L).title("Titulo").author("Autor").isbn("2509").version(4L).build()));
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_URL.concat("/1"))
+                        .header("If-Match", "\"3\"")
+                        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Responder 412 à atualização concorrente apenas quando o cliente enviou If-Match")
+    public void testConcurrentUpdateStatusFollowsIfMatch() throws Exception {
+        BDDMockito.given(service.getById(1L)).willAnswer(invocation -> Optional.of(
+                Book.builder().id(1L).title("Titulo").author("Autor").isbn("2509").version(4L).build()));
+        BDDMockito.given(service.update(Mockito.any(Book.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+        String body = new ObjectMapper().writeValueAsString(createNewBook());
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_URL.concat("/1"))
+                        .header("If-Match", "\"4\"")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_URL.concat("/1"))
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("Cursor inválido retorna bad request.")
+    public void testFindBooksInvalidCursor() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_URL.concat("?after=not-a-cursor"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("erros[0]").value("Invalid cursor"));
+    }
+
     private BookDTO createNewBook() {
         BookDTO dto = BookDTO.builder().author("João").title("Rodando o Mundo").isbn("2509").build();
         return dto;
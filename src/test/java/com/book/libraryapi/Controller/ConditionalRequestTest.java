@@ -0,0 +1,82 @@
+package com.book.libraryapi.Controller;
+
+import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.mail.outbox.enabled=false")
+@AutoConfigureMockMvc
+public class ConditionalRequestTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository repository;
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Versionar o livro a cada atualização e aplicar If-Match")
+    public void testVersionedUpdates() throws Exception {
+        Book book = repository.save(Book.builder().title("Titulo").author("Autor").isbn("2509").build());
+        String url = "/books/" + book.getId();
+        String body = new ObjectMapper().writeValueAsString(
+                BookDTO.builder().title("Novo").author("Autor").isbn("2509").build());
+
+        String etag = mvc.perform(MockMvcRequestBuilders.get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(MockMvcRequestBuilders.get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        String updated = mvc.perform(MockMvcRequestBuilders.put(url).header("If-Match", etag)
+                        .content(body).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(updated).isNotEqualTo(etag);
+
+        mvc.perform(MockMvcRequestBuilders.put(url).header("If-Match", etag)
+                        .content(body).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(MockMvcRequestBuilders.get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", updated));
+    }
+
+    @Test
+    @DisplayName("Responder 304 para páginas de empréstimos inalteradas")
+    public void testShallowEtagOnLoansPage() throws Exception {
+        Book book = repository.save(Book.builder().title("Titulo").author("Autor").isbn("2509").build());
+        String url = "/books/" + book.getId() + "/loans?page=0&size=10";
+
+        String etag = mvc.perform(MockMvcRequestBuilders.get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertThat(etag).isNotNull();
+        mvc.perform(MockMvcRequestBuilders.get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,101 @@
+package com.book.libraryapi.Controller;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import com.book.libraryapi.Service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.mail.outbox.enabled=false")
+@AutoConfigureMockMvc
+public class ExportStreamingTest {
+
+    static final int BOOKS = 1200;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Exportar todos os registros filtrados, além do tamanho de um lote do cursor")
+    public void testExportWholeDataSet() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(Book.builder().title("Titulo " + i).author(i % 2 == 0 ? "Par" : "Impar").isbn("isbn-" + i).build());
+        }
+        bookService.saveAll(books);
+        Book first = bookRepository.findByIsbn("isbn-0").get();
+        loanRepository.save(Loan.builder().book(first).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        String all = mvc.perform(MockMvcRequestBuilders.get("/books/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String even = mvc.perform(MockMvcRequestBuilders.get("/books/export?author=par&format=csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String loans = mvc.perform(MockMvcRequestBuilders.get("/loans/export?customer=Fulano&format=csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(all.split("\n")).hasSize(BOOKS);
+        // "par" also matches "Impar"; header line included
+        assertThat(even.split("\r\n")).hasSize(BOOKS + 1);
+        assertThat(loans.split("\r\n")).hasSize(2);
+        assertThat(loans.split("\r\n")[0]).isEqualTo("id,customer,customerEmail,loanDate,dueDate,status,returned,isbn");
+        assertThat(loans.split("\r\n")[1]).contains(",ACTIVE,").endsWith(",isbn-0");
+    }
+
+    @Test
+    @DisplayName("Aplicar o filtro de prazo do empréstimo na busca, no cursor e na exportação")
+    public void testLoanPeriodFilterAppliesToEveryPath() throws Exception {
+        bookService.save(Book.builder().title("Prazo longo").author("Autor").isbn("isbn-7").loanPeriodDays(7).build());
+        bookService.save(Book.builder().title("Prazo curto").author("Autor").isbn("isbn-3").loanPeriodDays(3).build());
+
+        mvc.perform(MockMvcRequestBuilders.get("/books?title=prazo&loanPeriodDays=7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("content[0].isbn").value("isbn-7"));
+        mvc.perform(MockMvcRequestBuilders.get("/books?after=&loanPeriodDays=7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content.length()").value(1))
+                .andExpect(jsonPath("content[0].isbn").value("isbn-7"));
+
+        String csv = mvc.perform(MockMvcRequestBuilders.get("/books/export?loanPeriodDays=7&format=csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(csv.split("\r\n")).containsExactly("id,title,author,isbn,loanPeriodDays",
+                bookRepository.findByIsbn("isbn-7").get().getId() + ",Prazo longo,Autor,isbn-7,7");
+    }
+}
@@ -1,5 +1,6 @@
 package com.book.libraryapi.Controller;
 
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Dto.LoanDto;
 import com.book.libraryapi.Dto.LoanFilterDTO;
 import com.book.libraryapi.Dto.ReturnedLoanDTO;
@@ -10,10 +11,12 @@ import com.book.libraryapi.Repository.LoanRepository;
 import com.book.libraryapi.Service.BookService;
 import com.book.libraryapi.Service.LoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,7 +33,11 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.book.libraryapi.Service.LoanServiceTest.createLoan;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -79,6 +86,10 @@ public class LoanControllerTest {
         mvc.perform(request)
                 .andExpect(status().isCreated())
                 .andExpect(content().string("1"));
+
+        ArgumentCaptor<Loan> saved = ArgumentCaptor.forClass(Loan.class);
+        Mockito.verify(loanService).save(saved.capture());
+        Assertions.assertThat(saved.getValue().getCustomerEmail()).isEqualTo("customer_test@email.com");
     }
 
     @Test
@@ -198,4 +209,97 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
+
+    @Test
+    @DisplayName("Realizar empréstimos em lote resolvendo os isbns em uma consulta")
+    @SuppressWarnings("unchecked")
+    public void testCreateLoanBatch() throws Exception{
+        List<LoanDto> dtos = Arrays.asList(
+                LoanDto.builder().isbn("2509").customer("Book Consumer").build(),
+                LoanDto.builder().isbn("0000").customer("Book Consumer").build(),
+                LoanDto.builder().isbn("2510").customer("Book Consumer").build());
+        Map<String, Book> books = new HashMap<>();
+        books.put("2509", Book.builder().id(1L).isbn("2509").build());
+        books.put("2510", Book.builder().id(2L).isbn("2510").build());
+        BDDMockito.given(bookService.getBooksByIsbn(Mockito.anyCollection())).willReturn(books);
+        BDDMockito.given(loanService.saveAll(Mockito.anyList())).willReturn(Arrays.asList(
+                BatchItemResultDTO.builder().index(0).status(BatchItemResultDTO.Status.CREATED).id(5L).isbn("2509").build(),
+                BatchItemResultDTO.builder().index(1).status(BatchItemResultDTO.Status.FAILED).isbn("2510")
+                        .erros(Arrays.asList("Book already loaned")).build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_URL.concat("batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dtos));
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$[0].id").value(5))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[1].erros[0]").value("Book not found for passed isbn"))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[2].erros[0]").value("Book already loaned"));
+        Mockito.verify(bookService, Mockito.never()).getBookByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Devolver empréstimos em lote")
+    public void testReturnLoanBatch() throws Exception{
+        List<ReturnedLoanDTO> dtos = Arrays.asList(ReturnedLoanDTO.builder().id(1L).returned(true).build());
+        BDDMockito.given(loanService.returnAll(dtos)).willReturn(Arrays.asList(
+                BatchItemResultDTO.builder().index(0).status(BatchItemResultDTO.Status.UPDATED).id(1L).build()));
+
+        mvc.perform(MockMvcRequestBuilders.patch(LOAN_URL.concat("batch"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"));
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Exportar empréstimos em NDJSON")
+    @SuppressWarnings("unchecked")
+    public void testExportLoansAsNdjson() throws Exception{
+        Mockito.doAnswer(invocation -> {
+            Consumer<Loan> consumer = invocation.getArgument(1);
+            Book book = Book.builder().id(1L).isbn("2509").build();
+            consumer.accept(Loan.builder().id(1L).customer("Fulano").book(book).build());
+            consumer.accept(Loan.builder().id(2L).customer("Ciclano").book(book).build());
+            return null;
+        }).when(loanService).exportAll(Mockito.any(LoanFilterDTO.class), Mockito.any(Consumer.class));
+
+        String body = mvc.perform(MockMvcRequestBuilders.get(LOAN_URL.concat("export?isbn=2509")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(new ObjectMapper().readValue(lines[1], LoanDto.class).getCustomer()).isEqualTo("Ciclano");
+    }
+
+    @Test
+    @DisplayName("Consulta de empréstimos paginada por cursor.")
+    public void testFindLoanAfterCursor() throws Exception {
+        Loan loan = createLoan();
+        loan.setId(3L);
+        loan.setBook(Book.builder().id(1L).isbn("2509").build());
+
+        BDDMockito.given(loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(0L), Mockito.eq(20)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 20), false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_URL.concat("?isbn=2509&after="))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value("2509"))
+                .andExpect(jsonPath("hasNext").value(false))
+                .andExpect(jsonPath("next").isEmpty());
+    }
 }
@@ -0,0 +1,87 @@
+package com.book.libraryapi.Controller;
+
+import com.book.libraryapi.Dto.LoanDto;
+import com.book.libraryapi.Dto.ReturnedLoanDTO;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.LoanStatus;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.mail.outbox.enabled=false")
+@AutoConfigureMockMvc
+public class LoanReturnTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Recusar reabrir pela API um empréstimo já devolvido")
+    public void testReturnedLoanCannotBeReopened() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Titulo").author("Autor").isbn("2509").build());
+        Long loanId = createLoan();
+
+        returnLoan(loanId, true).andExpect(status().isOk());
+        returnLoan(loanId, false)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("erros[0]").value("Loan already returned"));
+
+        assertThat(loanRepository.findById(loanId).get().getStatus()).isEqualTo(LoanStatus.RETURNED);
+        assertThat(bookRepository.findById(book.getId()).get().getActiveLoanId()).isNull();
+
+        Long next = createLoan();
+        assertThat(bookRepository.findById(book.getId()).get().getActiveLoanId()).isEqualTo(next);
+        mvc.perform(post(LoanDto.builder().isbn("2509").customer("Outro").build()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long createLoan() throws Exception {
+        String id = mvc.perform(post(LoanDto.builder().isbn("2509").customer("Fulano").build()))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Long.valueOf(id);
+    }
+
+    private MockHttpServletRequestBuilder post(LoanDto dto) throws Exception {
+        return MockMvcRequestBuilders.post("/loans")
+                .content(objectMapper.writeValueAsString(dto))
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private ResultActions returnLoan(Long id, boolean returned) throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.patch("/loans/" + id)
+                .content(objectMapper.writeValueAsString(ReturnedLoanDTO.builder().returned(returned).build()))
+                .contentType(MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,107 @@
+package com.book.libraryapi.Limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ConcurrencyLimitFilterTest {
+
+    SimpleMeterRegistry registry;
+    AimdLimiter readLimiter;
+    AimdLimiter writeLimiter;
+    ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    public void setUp(){
+        this.registry = new SimpleMeterRegistry();
+        this.readLimiter = new AimdLimiter("read", 1, 1, 1, 50, 0.9, registry);
+        this.writeLimiter = new AimdLimiter("write", 1, 1, 1, 100, 0.9, registry);
+        this.filter = new ConcurrencyLimitFilter(readLimiter, writeLimiter, 2);
+    }
+
+    @Test
+    @DisplayName("Rejeitar com 429 e Retry-After quando o limite de leitura for atingido")
+    public void testRejectsReadsOverTheLimit() throws Exception {
+        assertThat(readLimiter.tryAcquire()).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books"), rejected, rejectedChain);
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejectedChain.getRequest()).isNull();
+        assertThat(registry.get("http.concurrency.rejected").tag("limiter", "read").counter().count()).isEqualTo(1);
+
+        // writes have their own limit
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        MockFilterChain acceptedChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/loans"), accepted, acceptedChain);
+
+        assertThat(accepted.getStatus()).isEqualTo(200);
+        assertThat(acceptedChain.getRequest()).isNotNull();
+        assertThat(writeLimiter.getInFlight()).isZero();
+        assertThat(readLimiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Aumentar o limite com chamadas rápidas e reduzir com chamadas lentas ou falhas")
+    public void testAdjustsLimitFromRepositoryLatency(){
+        AimdLimiter limiter = new AimdLimiter("test", 10, 2, 20, 50, 0.9, registry);
+        for (int i = 0; i < 6; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        limiter.release(1, 10_000_000L, false);
+        assertThat(limiter.getLimit()).isEqualTo(11);
+
+        limiter.release(3, 100_000_000L, false);
+        assertThat(limiter.getLimit()).isEqualTo(9);
+
+        limiter.release(0, 0, true);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        // no repository work: nothing learned about the database
+        limiter.release(0, 0, false);
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(registry.get("http.concurrency.limit").tag("limiter", "test").gauge().value()).isEqualTo(8);
+        assertThat(registry.get("http.concurrency.inflight").tag("limiter", "test").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Não ajustar o limite pela latência de requisições em lote ou de exportação")
+    public void testBulkRequestsDoNotAdjustLimitFromLatency() throws Exception {
+        AimdLimiter limiter = new AimdLimiter("read", 10, 2, 20, 0, 0.9, registry);
+        ConcurrencyLimitFilter bulkFilter = new ConcurrencyLimitFilter(limiter, writeLimiter, 2);
+        RepositoryLatency listener = new RepositoryLatency();
+        RepositoryMethodInvocationListener.RepositoryMethodInvocation slowCall =
+                Mockito.mock(RepositoryMethodInvocationListener.RepositoryMethodInvocation.class);
+        Mockito.when(slowCall.getDuration(TimeUnit.NANOSECONDS)).thenReturn(1_000_000L);
+        FilterChain repositoryCall = (request, response) -> listener.afterInvocation(slowCall);
+
+        bulkFilter.doFilter(new MockHttpServletRequest("GET", "/books/export"), new MockHttpServletResponse(), repositoryCall);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        bulkFilter.doFilter(new MockHttpServletRequest("GET", "/books"), new MockHttpServletResponse(), repositoryCall);
+        assertThat(limiter.getLimit()).isEqualTo(9);
+    }
+}
@@ -0,0 +1,64 @@
+package com.book.libraryapi.Mapper;
+
+import com.book.libraryapi.Dto.BookDTO;
+import com.book.libraryapi.Dto.LoanDto;
+import com.book.libraryapi.Dto.ReturnedLoanDTO;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class DtoMapperTest {
+
+    DtoMapper mapper = new DtoMapper();
+
+    @Test
+    @DisplayName("Converter livro para DTO e de volta")
+    public void testBookRoundTrip(){
+        Book book = Book.builder().id(1L).author("João").title("Rodando o Mundo").isbn("2509").build();
+
+        BookDTO dto = mapper.toDto(book);
+        Book entity = mapper.toEntity(dto);
+
+        assertThat(dto).isEqualTo(BookDTO.builder().id(1L).author("João").title("Rodando o Mundo").isbn("2509").build());
+        assertThat(entity.getId()).isEqualTo(1L);
+        assertThat(entity.getAuthor()).isEqualTo("João");
+        assertThat(entity.getTitle()).isEqualTo("Rodando o Mundo");
+        assertThat(entity.getIsbn()).isEqualTo("2509");
+    }
+
+    @Test
+    @DisplayName("Converter empréstimo para DTO com o livro")
+    public void testLoanToDto(){
+        Book book = Book.builder().id(1L).author("João").title("Rodando o Mundo").isbn("2509").build();
+        Loan loan = Loan.builder().id(2L).book(book).customer("Fulano")
+                .customerEmail("fulano@email.com").loanDate(LocalDate.now()).build();
+
+        LoanDto dto = mapper.toDto(loan);
+
+        assertThat(dto.getId()).isEqualTo(2L);
+        assertThat(dto.getIsbn()).isEqualTo("2509");
+        assertThat(dto.getCustomer()).isEqualTo("Fulano");
+        assertThat(dto.getCustomerEmail()).isEqualTo("fulano@email.com");
+        assertThat(dto.getBookDTO()).isEqualTo(mapper.toDto(book));
+    }
+
+    @Test
+    @DisplayName("Aplicar devolução no empréstimo")
+    public void testApplyReturn(){
+        Loan loan = Loan.builder().id(2L).build();
+
+        mapper.applyReturn(ReturnedLoanDTO.builder().returned(true).build(), loan);
+
+        assertThat(loan.getReturned()).isTrue();
+    }
+}
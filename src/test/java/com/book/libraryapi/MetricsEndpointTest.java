@@ -0,0 +1,44 @@
+package com.book.libraryapi;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.mail.outbox.enabled=false")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class MetricsEndpointTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Expor métricas de endpoints, repositórios e erros no formato Prometheus")
+    public void testPrometheusEndpoint() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/books/999999"))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("uri=\"/books/{id}\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+                .andExpect(content().string(containsString("api_errors_total{status=\"404\",type=\"not_found\",}")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total")))
+                .andExpect(content().string(containsString("http_concurrency_limit{limiter=\"read\",}")))
+                .andExpect(content().string(containsString("http_concurrency_inflight{limiter=\"write\",}")))
+                .andExpect(content().string(containsString("http_concurrency_rejected_total{limiter=\"read\",}")));
+    }
+}
@@ -0,0 +1,75 @@
+package com.book.libraryapi.Profiling;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+@SpringBootTest(properties = {
+        "application.profiling.sql.enabled=true",
+        "application.profiling.sql.slow-request-ms=0",
+        "application.mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+public class SqlProfilingFilterTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Informar nos headers os comandos SQL e entidades carregadas na requisição")
+    public void testProfilingHeadersAndSlowLog(CapturedOutput output) throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Titulo").author("Autor").isbn("2509").build());
+        loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/loans?isbn=2509&customer=Fulano&page=0&size=10"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(Integer.valueOf(result.getResponse().getHeader(SqlProfilingFilter.SQL_COUNT_HEADER))).isPositive();
+        assertThat(Integer.valueOf(result.getResponse().getHeader(SqlProfilingFilter.ENTITIES_LOADED_HEADER))).isEqualTo(2);
+        assertThat(result.getResponse().getHeader(SqlProfilingFilter.SQL_TIME_HEADER)).isNotNull();
+        assertThat(result.getResponse().getContentAsString()).contains("Fulano");
+        assertThat(output).contains("Slow request method=GET uri=/loans");
+        assertThat(output).doesNotContain("'2509'");
+    }
+
+    @Test
+    @DisplayName("Ocultar literais do SQL registrado")
+    public void testRedactLiterals(){
+        assertThat(SqlProfilingListener.redact("select * from book where isbn = '25''09' and id = ?"))
+                .isEqualTo("select * from book where isbn = '?' and id = ?");
+    }
+}
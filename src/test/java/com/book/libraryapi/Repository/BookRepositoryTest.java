@@ -1,16 +1,23 @@
 package com.book.libraryapi.Repository;
 
 import com.book.libraryapi.Model.Book;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -81,6 +88,48 @@ public class BookRepositoryTest {
         assertThat(deletedBook).isNull();
     }
 
+    @Test
+    @DisplayName("Não permitir dois livros com o mesmo isbn.")
+    public void testUniqueIsbn(){
+        testEntityManager.persistAndFlush(createNewBookEntityTest("2509"));
+
+        Throwable ex = catchThrowable(() -> repository.saveAndFlush(createNewBookEntityTest("2509")));
+
+        assertThat(ex).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(ex.getCause()).isInstanceOf(ConstraintViolationException.class);
+        assertThat(((ConstraintViolationException) ex.getCause()).getConstraintName()).containsIgnoringCase("uk_book_isbn");
+    }
+
+    @Test
+    @DisplayName("Reservar o livro apenas quando não houver empréstimo ativo.")
+    public void testClaimAndReleaseForLoan(){
+        Book book = createNewBookEntityTest("2509");
+        testEntityManager.persistAndFlush(book);
+
+        assertThat(repository.claimForLoan(book.getId(), 10L)).isEqualTo(1);
+        assertThat(repository.claimForLoan(book.getId(), 11L)).isEqualTo(0);
+        assertThat(repository.claimForLoans(Arrays.asList(book.getId()), Arrays.asList(12L))).containsExactly(0);
+
+        assertThat(repository.releaseLoans(Arrays.asList(10L))).isEqualTo(1);
+        assertThat(repository.claimForLoans(Arrays.asList(book.getId()), Arrays.asList(12L))).containsExactly(1);
+    }
+
+    @Test
+    @DisplayName("Paginar livros a partir do último id lido, sem contagem.")
+    public void testFindSliceAfter(){
+        Book first = testEntityManager.persist(createNewBookEntityTest("2509"));
+        Book second = testEntityManager.persist(createNewBookEntityTest("2510"));
+        testEntityManager.persist(Book.builder().author("Outro").title("Outro livro").isbn("2511").build());
+
+        Slice<Book> firstSlice = repository.findSliceAfter(0L, "rodando", null, null, null, PageRequest.of(0, 1));
+        Slice<Book> secondSlice = repository.findSliceAfter(first.getId(), "rodando", null, null, null, PageRequest.of(0, 1));
+
+        assertThat(firstSlice.getContent()).containsExactly(first);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(secondSlice.getContent()).containsExactly(second);
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
     public static Book createNewBookEntityTest(String isbn) {
         return Book.builder().author("João").title("Rodando o Mundo").isbn(isbn).build();
     }
@@ -0,0 +1,159 @@
+package com.book.libraryapi.Repository;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Search.BookSearchIndex;
+import com.book.libraryapi.Search.BookSearchIndexLoader;
+import com.book.libraryapi.Service.BookService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "application.mail.outbox.enabled=false")
+public class BookSecondLevelCacheTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    BookSearchIndexLoader searchIndexLoader;
+
+    @Autowired
+    BookSearchIndex searchIndex;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Statistics statistics;
+    TransactionTemplate transaction;
+
+    @BeforeEach
+    public void setUp(){
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Ler o livro do cache de segundo nível sem acessar o banco")
+    public void testFindByIdHitsTheEntityRegion(){
+        Book book = repository.save(newBook("123"));
+        statistics.clear();
+
+        repository.findById(book.getId());
+        repository.findById(book.getId());
+
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Reutilizar a busca de livros até que um livro seja alterado")
+    public void testCatalogSearchUsesTheQueryCache(){
+        repository.save(newBook("123"));
+        Example<Book> example = Example.of(Book.builder().title("cache").build(),
+                ExampleMatcher.matching().withIgnoreCase().withIgnoreNullValues()
+                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+        PageRequest page = PageRequest.of(0, 10);
+
+        repository.findAll(example, page);
+        statistics.clear();
+        assertThat(repository.findAll(example, page).getContent()).hasSize(1);
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        repository.save(newBook("456"));
+
+        assertThat(repository.findAll(example, page).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Refletir no cache a reserva e a devolução do livro")
+    public void testLoanClaimsEvictTheBook(){
+        Book book = repository.save(newBook("123"));
+        repository.findById(book.getId());
+
+        transaction.executeWithoutResult(status -> repository.claimForLoan(book.getId(), 10L));
+        assertThat(repository.findById(book.getId()).get().getActiveLoanId()).isEqualTo(10L);
+
+        transaction.executeWithoutResult(status -> repository.releaseLoans(Collections.singletonList(10L)));
+        assertThat(repository.findById(book.getId()).get().getActiveLoanId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Não guardar no cache um empréstimo ativo desatualizado ao atualizar o livro")
+    public void testUpdateDoesNotCacheStaleActiveLoan(){
+        Book book = repository.save(newBook("123"));
+        transaction.executeWithoutResult(status -> repository.claimForLoan(book.getId(), 10L));
+
+        Book stale = repository.findById(book.getId()).get().toBuilder().activeLoanId(null).title("Novo titulo").build();
+        service.update(stale);
+
+        Book cached = repository.findById(book.getId()).get();
+        assertThat(cached.getTitle()).isEqualTo("Novo titulo");
+        assertThat(cached.getActiveLoanId()).isEqualTo(10L);
+    }
+
+    @Test
+    @DisplayName("Reconstruir o índice de busca sem preencher os caches")
+    public void testSearchIndexRebuildBypassesTheCaches(){
+        repository.save(newBook("123"));
+        repository.save(newBook("456"));
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        searchIndexLoader.build();
+
+        assertThat(searchIndex.search("cache", null, null, 0, 10).getTotal()).isEqualTo(2);
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getPutCount()).isZero();
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Exportar os livros sem preencher o cache")
+    public void testExportBypassesTheCache(){
+        repository.save(newBook("123"));
+        repository.save(newBook("456"));
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        List<Book> exported = new ArrayList<>();
+
+        service.exportAll(Book.builder().build(), exported::add);
+
+        assertThat(exported).hasSize(2);
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getPutCount()).isZero();
+    }
+
+    private Book newBook(String isbn){
+        return Book.builder().title("Livro em cache").author("Autor").isbn(isbn).build();
+    }
+}
@@ -2,6 +2,9 @@ package com.book.libraryapi.Repository;
 
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Model.LoanStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +13,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,7 +25,7 @@ import static com.book.libraryapi.Repository.BookRepositoryTest.createNewBookEnt
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class LoanRepositoryTest {
 
     @Autowired
@@ -30,18 +34,6 @@ public class LoanRepositoryTest {
     @Autowired
     private LoanRepository repository;
 
-    @Test
-    @DisplayName("Verificar se existe empréstimo não devolvido para livro.")
-    public void testExistsByBookAndNotReturned(){
-       Loan loan = createAndPersistLoan(LocalDate.now());
-
-       Book book = loan.getBook();
-
-        boolean exists = repository.existsByBookAndNotReturned(book);
-
-        assertThat(exists).isTrue();
-    }
-
     @Test
     @DisplayName("Buscar um empréstimo pelo isbn ou customer")
     public void testFindByBookIsbnCustomer(){
@@ -58,27 +50,116 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Obter empréstimos quando a data emprestimo for menor ou igual a três dias atrás e não retornados")
-    public void testFindByLoanDateLessThanAndNotReturned(){
-        Loan loan = createAndPersistLoan(LocalDate.now().minusDays(4));
+    @DisplayName("Obter empréstimos abertos com a data de devolução vencida")
+    public void testFindOverdue(){
+        Loan late = createAndPersistLoan(LocalDate.now().minusDays(4));
+        late.setDueDate(LocalDate.now().minusDays(1));
+        Loan returned = createAndPersistLoan(LocalDate.now().minusDays(4), "2510");
+        returned.setDueDate(LocalDate.now().minusDays(1));
+        returned.setReturned(true);
+        Loan onTime = createAndPersistLoan(LocalDate.now(), "2511");
+        onTime.setDueDate(LocalDate.now());
+        testEntityManager.flush();
+
+        List<Loan> loanList = repository.findOverdue(LocalDate.now());
+
+        assertThat(loanList).containsExactly(late);
+        assertThat(returned.getStatus()).isEqualTo(LoanStatus.RETURNED);
+    }
+
+    @Test
+    @DisplayName("Marcar como atrasados e paginar pela data de devolução e id")
+    public void testMarkOverdueAndFindOverdueAfter(){
+        LocalDate due = LocalDate.now().minusDays(3);
+        Loan second = createAndPersistLoan(due, "2509");
+        second.setDueDate(due.plusDays(1));
+        Loan first = createAndPersistLoan(due, "2510");
+        first.setDueDate(due);
+        Loan onTime = createAndPersistLoan(LocalDate.now(), "2511");
+        onTime.setDueDate(LocalDate.now().plusDays(3));
+        testEntityManager.flush();
+
+        assertThat(repository.markOverdue(LocalDate.now())).isEqualTo(2);
+        testEntityManager.clear();
+
+        assertThat(repository.findEarliestOverdueDueDate()).contains(due);
+        List<Loan> firstChunk = repository.findOverdueAfter(due, 0L, PageRequest.of(0, 1));
+        List<Loan> secondChunk = repository.findOverdueAfter(due, first.getId(), PageRequest.of(0, 1));
+        List<Loan> lastChunk = repository.findOverdueAfter(due.plusDays(1), second.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstChunk).extracting(Loan::getId).containsExactly(first.getId());
+        assertThat(secondChunk).extracting(Loan::getId).containsExactly(second.getId());
+        assertThat(lastChunk).isEmpty();
+        assertThat(repository.findById(onTime.getId())).get().extracting(Loan::getStatus).isEqualTo(LoanStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("Paginar empréstimos por isbn ou customer a partir de um cursor")
+    public void testFindSliceByBookIsbnOrCustomerAfter(){
+        Loan first = createAndPersistLoan(LocalDate.now());
+        Loan second = createAndPersistLoan(LocalDate.now(), "2510");
 
-        List<Loan> loanList = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        Slice<Loan> slice = repository.findSliceByBookIsbnOrCustomerAfter(first.getId(), "0000", "João", PageRequest.of(0, 10));
 
-        assertThat(loanList).hasSize(1).contains(loan);
+        assertThat(slice.getContent()).containsExactly(second);
+        assertThat(slice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Listar empréstimos e seus livros com um único select por página")
+    public void testListingFetchesBooksInOneStatement(){
+        for (int i = 0; i < 5; i++) {
+            createAndPersistLoan(LocalDate.now(), "isbn-" + i);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        Page<Loan> page = repository.findByBookIsbnOrCustomer("0000", "João", PageRequest.of(0, 10));
+        page.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        Page<Loan> firstPage = repository.findByBookIsbnOrCustomer("0000", "João", PageRequest.of(0, 2));
+        firstPage.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        assertThat(firstPage.getTotalElements()).isEqualTo(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
     }
 
     @Test
-    @DisplayName("Retornar vazio caso não tenha emprestimos atrasados")
-    public void testNotFindByLoanDateLessThanAndNotReturned(){
-        createAndPersistLoan(LocalDate.now());
+    @DisplayName("Listar empréstimos de um livro sem selects extras para o livro")
+    public void testFindByBookFetchesBookInOneStatement(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        Book book = loan.getBook();
+        testEntityManager.flush();
+        testEntityManager.clear();
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        Page<Loan> page = repository.findByBook(book, PageRequest.of(0, 10));
+        page.getContent().forEach(l -> l.getBook().getTitle());
 
-        List<Loan> loanList = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
 
-        assertThat(loanList).isEmpty();
+    private Statistics statistics(){
+        return testEntityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
     }
 
     public Loan createAndPersistLoan(LocalDate loanDate){
-        Book book = createNewBookEntityTest("2509");
+        return createAndPersistLoan(loanDate, "2509");
+    }
+
+    public Loan createAndPersistLoan(LocalDate loanDate, String isbn){
+        Book book = createNewBookEntityTest(isbn);
         testEntityManager.persist(book);
 
         Loan loan = Loan.builder()
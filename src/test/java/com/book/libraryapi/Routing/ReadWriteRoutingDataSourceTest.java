@@ -0,0 +1,140 @@
+package com.book.libraryapi.Routing;
+
+import com.book.libraryapi.Cache.BookCache;
+import com.book.libraryapi.Model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    DataSource routing;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    public void setUp(){
+        DataSource primary = database("primary");
+        routing = ReadWriteRoutingDataSource.create(primary,
+                Arrays.asList(database("replica-a"), database("replica-b")));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbc = new JdbcTemplate(routing);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    @DisplayName("Enviar transações somente leitura às réplicas, em rodízio")
+    public void testReadOnlyTransactionsGoToReplicas(){
+        assertThat(readIn(readOnly)).isEqualTo("replica-a");
+        assertThat(readIn(readOnly)).isEqualTo("replica-b");
+        assertThat(readIn(readOnly)).isEqualTo("replica-a");
+    }
+
+    @Test
+    @DisplayName("Enviar escritas e acessos fora de transação ao primário")
+    public void testWritesGoToPrimary(){
+        assertThat(readIn(readWrite)).isEqualTo("primary");
+        assertThat(whoAmI()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Ler do primário quando o cliente escreveu há pouco")
+    public void testPinnedReadsGoToPrimary(){
+        ReadYourWrites.pin();
+
+        assertThat(readIn(readOnly)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Não entregar a leituras fixadas no primário uma carga do cache em andamento")
+    public void testPinnedReadsDoNotJoinCacheLoads() throws Exception {
+        BookCache cache = new BookCache(100, 60000, 60000, 60000, new SimpleMeterRegistry());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Optional<Book>> replicaLoad = pool.submit(() -> cache.getByIsbn("2509", isbn -> {
+            loading.countDown();
+            await(release);
+            return Optional.of(Book.builder().id(1L).isbn(isbn).title("réplica").build());
+        }));
+        loading.await();
+
+        // joining the load would block until the coalesce timeout
+        Optional<Book> pinned = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            ReadYourWrites.pin();
+            return cache.getByIsbn("2509",
+                    isbn -> Optional.of(Book.builder().id(1L).isbn(isbn).title("primário").build()));
+        });
+        release.countDown();
+
+        assertThat(pinned.get().getTitle()).isEqualTo("primário");
+        assertThat(replicaLoad.get().get().getTitle()).isEqualTo("réplica");
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Usar o primário quando não houver réplicas")
+    public void testNoReplicasFallsBackToPrimary(){
+        DataSource primaryOnly = ReadWriteRoutingDataSource.create(database("alone"), Collections.emptyList());
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(primaryOnly));
+        template.setReadOnly(true);
+
+        jdbc = new JdbcTemplate(primaryOnly);
+        String node = readIn(template);
+
+        assertThat(node).isEqualTo("alone");
+    }
+
+    private String readIn(TransactionTemplate template){
+        return template.execute(status -> whoAmI());
+    }
+
+    private String whoAmI(){
+        return jdbc.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource database(String name){
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists node (name varchar(20))");
+        jdbc.execute("delete from node");
+        jdbc.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.book.libraryapi.Routing;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Repository.BookRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The "replica" is the primary's own database: only the routing decision
+ * matters here, not replication.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "application.mail.outbox.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:replica-cache;DB_CLOSE_DELAY=-1",
+        "application.datasource.routing.enabled=true",
+        "application.datasource.replicas=jdbc:h2:mem:replica-cache;DB_CLOSE_DELAY=-1"
+})
+public class ReplicaCacheModeTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Não preencher os caches com leituras enviadas às réplicas")
+    public void testReplicaReadsDoNotFillTheCaches(){
+        Book book = repository.save(Book.builder().title("Livro").author("Autor").isbn("2509").build());
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            assertThat(repository.findById(book.getId())).isPresent();
+            assertThat(repository.findByIsbn("2509")).isPresent();
+        });
+
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getPutCount()).isZero();
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.findByIsbn("2509"));
+
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getPutCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+
+        readOnly.executeWithoutResult(status -> repository.findByIsbn("2509"));
+
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+}
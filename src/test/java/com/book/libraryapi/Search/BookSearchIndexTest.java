@@ -0,0 +1,117 @@
+package com.book.libraryapi.Search;
+
+import com.book.libraryapi.Model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp(){
+        index = new BookSearchIndex();
+        index.beginBuild();
+        index.load(book(1L, "Rodando o Mundo", "João", "2509"));
+        index.load(book(2L, "Mundo", "Maria", "2510"));
+        index.load(book(3L, "O Mundo Novo", "João Silva", "3509"));
+        index.load(book(4L, "Outro livro", "Pedro", "4000"));
+        index.finishBuild();
+    }
+
+    @Test
+    @DisplayName("Encontrar livros que contêm o texto, ignorando maiúsculas")
+    public void testContainsIgnoringCase(){
+        BookSearchIndex.SearchResult result = index.search("MUNDO", null, null, 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getIds()).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Combinar critérios de campos diferentes")
+    public void testCombinesFields(){
+        assertThat(index.search("mundo", "joão", null, 0, 10).getIds()).containsExactly(1L, 3L);
+        assertThat(index.search(null, null, "509", 0, 10).getIds()).containsExactly(1L, 3L);
+        assertThat(index.search(null, "jo", null, 0, 10).getIds()).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Não retornar falsos positivos de trigramas fora de ordem")
+    public void testVerifiesCandidates(){
+        index.index(book(5L, "abcd bcda", "X", "5"));
+
+        assertThat(index.search("abcda", null, null, 0, 10).getIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Paginar o resultado mantendo o total")
+    public void testPaging(){
+        BookSearchIndex.SearchResult result = index.search("mundo", null, null, 1, 1);
+
+        assertThat(result.getIds()).containsExactly(1L);
+        assertThat(result.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Atualizar e remover livros do índice")
+    public void testUpdateAndRemove(){
+        index.index(book(4L, "Mundo perdido", "Pedro", "4000"));
+        index.remove(2L);
+
+        assertThat(index.search("mundo", null, null, 0, 10).getIds()).containsExactly(4L, 1L, 3L);
+        assertThat(index.search("outro", null, null, 0, 10).getIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Escritas feitas durante a carga inicial prevalecem")
+    public void testLiveWritesWinOverBuild(){
+        BookSearchIndex fresh = new BookSearchIndex();
+        fresh.beginBuild();
+        fresh.index(book(1L, "Titulo novo", "A", "1"));
+        fresh.remove(2L);
+        fresh.load(book(1L, "Titulo antigo", "A", "1"));
+        fresh.load(book(2L, "Removido", "B", "2"));
+        fresh.finishBuild();
+
+        assertThat(fresh.isReady()).isTrue();
+        assertThat(fresh.search("novo", null, null, 0, 10).getIds()).containsExactly(1L);
+        assertThat(fresh.search("antigo", null, null, 0, 10).getIds()).isEmpty();
+        assertThat(fresh.search("removido", null, null, 0, 10).getIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Buscar termos curtos apenas entre os livros que os contêm")
+    public void testShortTermsUseTheirOwnPostings(){
+        assertThat(index.search("ro", null, null, 0, 10).getIds()).containsExactly(1L, 4L);
+        assertThat(index.search(null, "p", null, 0, 10).getIds()).containsExactly(4L);
+        assertThat(index.search("z", null, null, 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("Manter a ordem do ranking em páginas profundas")
+    public void testDeepPagesKeepTheRanking(){
+        for (long id = 10; id < 60; id++) {
+            index.index(book(id, id % 2 == 0 ? "Mundo" : "Um mundo " + id, "A", "isbn-" + id));
+        }
+
+        BookSearchIndex.SearchResult all = index.search("mundo", null, null, 0, 100);
+        BookSearchIndex.SearchResult page = index.search("mundo", null, null, 20, 7);
+
+        assertThat(page.getTotal()).isEqualTo(all.getTotal()).isEqualTo(53);
+        assertThat(page.getIds()).containsExactlyElementsOf(all.getIds().subList(20, 27));
+        assertThat(index.search("mundo", null, null, 50, 10).getIds()).containsExactlyElementsOf(all.getIds().subList(50, 53));
+    }
+
+    private Book book(Long id, String title, String author, String isbn){
+        return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "application.mail.outbox.enabled=false",
+        "application.loans.backfill.chunk-size=2"
+})
+public class ActiveLoanBackfillTest {
+
+    @Autowired
+    ActiveLoanBackfill backfill;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Vincular os livros aos empréstimos abertos antigos")
+    public void testBackfillClaimsBooksOfOpenLoans(){
+        Book open = newBook("1");
+        Book legacyFlag = newBook("2");
+        Book returned = newBook("3");
+        Book twice = newBook("4");
+        Loan openLoan = legacyLoan(open, false);
+        Loan nullFlagLoan = legacyLoan(legacyFlag, null);
+        legacyLoan(returned, true);
+        Loan older = legacyLoan(twice, false);
+        legacyLoan(twice, false);
+
+        backfill.backfill();
+
+        assertThat(activeLoanOf(open)).isEqualTo(openLoan.getId());
+        assertThat(activeLoanOf(legacyFlag)).isEqualTo(nullFlagLoan.getId());
+        assertThat(activeLoanOf(returned)).isNull();
+        assertThat(activeLoanOf(twice)).isEqualTo(older.getId());
+    }
+
+    private Book newBook(String isbn){
+        return bookRepository.save(Book.builder().title("Livro").author("Autor").isbn(isbn).build());
+    }
+
+    private Loan legacyLoan(Book book, Boolean returned){
+        Loan loan = Loan.builder().book(book).customer("João").loanDate(LocalDate.now()).returned(returned).build();
+        return loanRepository.save(loan);
+    }
+
+    private Long activeLoanOf(Book book){
+        return bookRepository.findById(book.getId()).get().getActiveLoanId();
+    }
+}
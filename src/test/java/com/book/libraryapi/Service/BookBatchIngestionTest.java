@@ -0,0 +1,71 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Dto.BatchItemResultDTO;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Repository.BookRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "application.books.batch.size=100"
+})
+public class BookBatchIngestionTest {
+
+    static final int BOOKS = 250;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Inserir livros em lote com poucos comandos JDBC")
+    public void testSaveAllUsesJdbcBatches(){
+        repository.save(Book.builder().title("Existente").author("Autor").isbn("isbn-7").build());
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(Book.builder().title("Titulo " + i).author("Autor").isbn("isbn-" + i).build());
+        }
+        books.add(Book.builder().title("Repetido").author("Autor").isbn("isbn-1").build());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BatchItemResultDTO> results = service.saveAll(books);
+
+        assertThat(results).hasSize(BOOKS + 1);
+        assertThat(results.get(7).getStatus()).isEqualTo(BatchItemResultDTO.Status.DUPLICATE);
+        assertThat(results.get(BOOKS).getStatus()).isEqualTo(BatchItemResultDTO.Status.DUPLICATE);
+        assertThat(results).filteredOn(result -> result.getStatus() == BatchItemResultDTO.Status.CREATED)
+                .hasSize(BOOKS - 1)
+                .allMatch(result -> result.getId() != null);
+        assertThat(repository.count()).isEqualTo(BOOKS);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(BOOKS - 1);
+        // one lookup, a handful of sequence calls and one insert statement per chunk
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+    }
+}
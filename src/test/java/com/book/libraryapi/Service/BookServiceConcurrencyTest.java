@@ -0,0 +1,98 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Exception.BusinessException;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookServiceConcurrencyTest {
+
+    static final int THREADS = 16;
+    static final int ISBNS = 50;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Criações concorrentes com o mesmo isbn geram um único livro")
+    public void testConcurrentCreatesDoNotDuplicateIsbn() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ISBNS; i++) {
+                    try {
+                        service.save(Book.builder().title("Titulo").author("Autor").isbn("isbn-" + i).build());
+                        created.incrementAndGet();
+                    } catch (BusinessException ex) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(created.get()).isEqualTo(ISBNS);
+        assertThat(rejected.get()).isEqualTo(ISBNS * (THREADS - 1));
+        assertThat(repository.count()).isEqualTo(ISBNS);
+    }
+
+    @Test
+    @DisplayName("Não manter no cache um livro lido enquanto sua deleção não foi confirmada")
+    public void testDeleteInvalidatesLoadsRacingTheCommit() throws Exception {
+        Book book = service.save(Book.builder().title("Titulo").author("Autor").isbn("isbn-delete").build());
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.delete(book);
+            // another request misses the cache and reads the row the delete has not committed yet
+            Future<Optional<Book>> racing = pool.submit(() -> service.getById(book.getId()));
+            try {
+                assertThat(racing.get(30, TimeUnit.SECONDS)).isPresent();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        pool.shutdown();
+
+        assertThat(service.getById(book.getId())).isEmpty();
+    }
+}
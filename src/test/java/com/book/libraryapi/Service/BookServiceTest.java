@@ -1,10 +1,15 @@
 package com.book.libraryapi.Service;
 
+import com.book.libraryapi.Cache.BookCache;
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Exception.BusinessException;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Search.BookSearchIndex;
 import com.book.libraryapi.Service.Impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,14 +17,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.persistence.EntityManager;
+
+import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,21 +41,24 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class BookServiceTest {
 
     BookService service;
+    BookSearchIndex searchIndex;
     @MockBean
     BookRepository repository;
 
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        this.searchIndex = new BookSearchIndex();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        this.service = new BookServiceImpl(repository, new BookCache(100, 60000, 60000, 5000, registry), searchIndex,
+                Mockito.mock(PlatformTransactionManager.class), Mockito.mock(EntityManager.class), 2, 5000, registry);
     }
 
     @Test
     @DisplayName("Salvar livro")
     public void testSaveBook(){
         Book book = createValidBook();
-        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
 
-        BDDMockito.when(repository.save(book)).thenReturn(
+        BDDMockito.when(repository.saveAndFlush(book)).thenReturn(
                 Book.builder()
                     .id(11L)
                     .author("João")
@@ -63,14 +78,26 @@ public class BookServiceTest {
     @DisplayName("Lançar exception ao tentar salvar um livro com um isbn duplicado")
     public void testShouldNotSaveABookWithDupicatedIsbn(){
         Book book = createValidBook();
-        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+        Mockito.when(repository.saveAndFlush(book))
+                .thenThrow(constraintViolation("PUBLIC.UK_BOOK_ISBN_INDEX_1"));
 
         Throwable ex = Assertions.catchThrowable( () -> service.save(book));
         assertThat(ex)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("Isbn já cadastrado.");
 
-        Mockito.verify(repository, Mockito.never()).save(book);
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Propagar violações de integridade que não sejam de isbn duplicado")
+    public void testShouldRethrowOtherIntegrityViolations(){
+        Book book = createValidBook();
+        DataIntegrityViolationException violation = constraintViolation("PUBLIC.CONSTRAINT_1F");
+        Mockito.when(repository.saveAndFlush(book)).thenThrow(violation);
+
+        Throwable ex = Assertions.catchThrowable( () -> service.save(book));
+        assertThat(ex).isSameAs(violation);
     }
 
     @Test
@@ -200,6 +227,167 @@ public class BookServiceTest {
         Mockito.verify(repository, Mockito.times(1)).findByIsbn(isbn);
     }
 
+    @Test
+    @DisplayName("Servir consultas repetidas por id a partir do cache")
+    public void testGetByIdIsCached(){
+        Book book = createValidBook();
+        book.setId(1L);
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+        service.getById(1L);
+        Optional<Book> cached = service.getById(1L);
+
+        assertThat(cached).contains(book);
+        Mockito.verify(repository, Mockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Guardar no cache as consultas por isbn inexistente")
+    public void testUnknownIsbnIsCached(){
+        Mockito.when(repository.findByIsbn("0000")).thenReturn(Optional.empty());
+
+        service.getBookByIsbn("0000");
+        Optional<Book> cached = service.getBookByIsbn("0000");
+
+        assertThat(cached).isEmpty();
+        Mockito.verify(repository, Mockito.times(1)).findByIsbn("0000");
+    }
+
+    @Test
+    @DisplayName("Atualizar o cache ao salvar, atualizar e deletar um livro")
+    public void testCacheIsRefreshedOnWrites(){
+        Mockito.when(repository.findByIsbn("2509")).thenReturn(Optional.empty());
+        assertThat(service.getBookByIsbn("2509")).isEmpty();
+
+        Book saved = createValidBook();
+        saved.setId(1L);
+        Mockito.when(repository.saveAndFlush(Mockito.any(Book.class))).thenReturn(saved);
+        service.save(createValidBook());
+
+        assertThat(service.getBookByIsbn("2509")).contains(saved);
+
+        Book renamed = saved.toBuilder().title("Outro titulo").build();
+        Mockito.when(repository.save(renamed)).thenReturn(renamed);
+        service.update(renamed);
+
+        assertThat(service.getById(1L).map(Book::getTitle)).contains("Outro titulo");
+
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.empty());
+        service.delete(renamed);
+
+        assertThat(service.getById(1L)).isEmpty();
+        Mockito.verify(repository, Mockito.times(1)).findByIsbn("2509");
+    }
+
+    @Test
+    @DisplayName("Alterações no livro retornado não afetam o cache")
+    public void testCachedBooksAreCopies(){
+        Book book = createValidBook();
+        book.setId(1L);
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+        service.getById(1L).get().setTitle("alterado");
+
+        assertThat(service.getById(1L).get().getTitle()).isEqualTo("Rodando o Mundo");
+    }
+
+    @Test
+    @DisplayName("Buscar livros pelo índice e carregar a página em uma única consulta")
+    public void testFindBookUsingSearchIndex(){
+        Book exact = Book.builder().id(1L).author("João").title("Mundo").isbn("1").build();
+        Book contains = Book.builder().id(2L).author("João").title("Rodando o Mundo").isbn("2").build();
+        Book other = Book.builder().id(3L).author("Maria").title("Outro").isbn("3").build();
+        searchIndex.beginBuild();
+        Arrays.asList(exact, contains, other).forEach(searchIndex::load);
+        searchIndex.finishBuild();
+
+        Mockito.when(repository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(contains, exact));
+
+        Page<Book> result = service.find(Book.builder().title("MUNDO").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(exact, contains);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Manter o índice de busca atualizado ao salvar e deletar")
+    public void testSearchIndexFollowsWrites(){
+        searchIndex.beginBuild();
+        searchIndex.finishBuild();
+        Book saved = createValidBook();
+        saved.setId(1L);
+        Mockito.when(repository.saveAndFlush(Mockito.any(Book.class))).thenReturn(saved);
+
+        service.save(createValidBook());
+        assertThat(searchIndex.search("rodando", null, null, 0, 10).getIds()).containsExactly(1L);
+
+        service.delete(saved);
+        assertThat(searchIndex.search("rodando", null, null, 0, 10).getIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Salvar livros em lote marcando isbns repetidos e já cadastrados")
+    public void testSaveAllBooks(){
+        Book first = Book.builder().author("A").title("Um").isbn("1").build();
+        Book repeated = Book.builder().author("B").title("Dois").isbn("1").build();
+        Book existing = Book.builder().author("C").title("Três").isbn("2").build();
+        Book second = Book.builder().author("D").title("Quatro").isbn("3").build();
+        Book third = Book.builder().author("E").title("Cinco").isbn("4").build();
+
+        Mockito.when(repository.findExistingIsbns(Arrays.asList("1", "2", "3", "4"))).thenReturn(Arrays.asList("2"));
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            books.forEach(book -> book.setId(Long.valueOf(book.getIsbn()) * 10));
+            return books;
+        });
+
+        List<BatchItemResultDTO> results = service.saveAll(Arrays.asList(first, repeated, existing, second, third));
+
+        assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.CREATED, BatchItemResultDTO.Status.DUPLICATE,
+                BatchItemResultDTO.Status.DUPLICATE, BatchItemResultDTO.Status.CREATED,
+                BatchItemResultDTO.Status.CREATED);
+        assertThat(results).extracting(BatchItemResultDTO::getId).containsExactly(10L, null, null, 30L, 40L);
+        assertThat(results.get(2).getErros()).containsExactly("Isbn já cadastrado.");
+        // batch size is 2: three new books go in two chunks
+        Mockito.verify(repository, Mockito.times(2)).saveAll(Mockito.anyList());
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(Mockito.any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Inserir um a um apenas quando o lote perder um isbn para outra gravação")
+    public void testSaveAllFallsBackOnlyOnDuplicateIsbn(){
+        Book first = Book.builder().author("A").title("Um").isbn("1").build();
+        Book taken = Book.builder().author("B").title("Dois").isbn("2").build();
+        Book broken = Book.builder().author("C").title("Três").isbn("3").build();
+        Book fourth = Book.builder().author("D").title("Quatro").isbn("4").build();
+
+        Mockito.when(repository.findExistingIsbns(Mockito.anyList())).thenReturn(Collections.emptyList());
+        Mockito.when(repository.saveAll(Mockito.anyList()))
+                .thenThrow(constraintViolation("PUBLIC.UK_BOOK_ISBN_INDEX_1"))
+                .thenThrow(constraintViolation("PUBLIC.CONSTRAINT_1F"));
+        Mockito.when(repository.saveAndFlush(first)).thenAnswer(invocation -> {
+            first.setId(10L);
+            return first;
+        });
+        Mockito.when(repository.saveAndFlush(taken)).thenThrow(constraintViolation("PUBLIC.UK_BOOK_ISBN_INDEX_1"));
+
+        List<BatchItemResultDTO> results = service.saveAll(Arrays.asList(first, taken, broken, fourth));
+
+        assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.CREATED, BatchItemResultDTO.Status.DUPLICATE,
+                BatchItemResultDTO.Status.FAILED, BatchItemResultDTO.Status.FAILED);
+        assertThat(results).extracting(BatchItemResultDTO::getId).containsExactly(10L, null, null, null);
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(broken);
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(fourth);
+    }
+
+    private static DataIntegrityViolationException constraintViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
+
     private Book createValidBook(){
         return Book.builder().author("João").title("Rodando o Mundo").isbn("2509").build();
     }
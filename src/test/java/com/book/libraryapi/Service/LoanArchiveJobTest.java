@@ -0,0 +1,146 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Dto.LoanFilterDTO;
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Model.LoanStatus;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanArchiveRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "application.mail.outbox.enabled=false",
+        "application.loans.archive.age-days=30",
+        "application.loans.archive.chunk-size=2"
+})
+public class LoanArchiveJobTest {
+
+    static final String CUSTOMER = "João";
+
+    @Autowired
+    LoanArchiveJob job;
+
+    @Autowired
+    LoanService service;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanArchiveRepository archiveRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Book book;
+
+    @BeforeEach
+    public void setUp(){
+        book = bookRepository.save(Book.builder().title("Livro").author("Autor").isbn("123").build());
+    }
+
+    @AfterEach
+    public void tearDown(){
+        archiveRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Arquivar em blocos apenas os empréstimos devolvidos há mais tempo")
+    public void testArchiveMovesOldReturnedLoans(){
+        for (int i = 0; i < 3; i++) {
+            loan(LocalDate.now().minusDays(100 + i), true);
+        }
+        Loan openLate = loan(LocalDate.now().minusDays(100), false);
+        Loan recent = loan(LocalDate.now().minusDays(5), true);
+        Loan returnedLate = loan(LocalDate.now().minusDays(100), false);
+        returnedLate.setReturned(true);
+        returnedLate = loanRepository.save(returnedLate);
+        Loan legacy = loanRepository.save(Loan.builder().book(book).customer(CUSTOMER)
+                .loanDate(LocalDate.now().minusDays(100)).dueDate(LocalDate.now().minusDays(97)).returned(true).build());
+
+        job.archive();
+
+        assertThat(archiveRepository.count()).isEqualTo(4);
+        assertThat(archiveRepository.findById(legacy.getId())).isPresent();
+        assertThat(loanRepository.findAll()).extracting(Loan::getId)
+                .containsExactlyInAnyOrder(openLate.getId(), recent.getId(), returnedLate.getId());
+    }
+
+    @Test
+    @DisplayName("Arquivar sem esvaziar os caches de livros")
+    public void testArchiveKeepsBooksCached(){
+        loan(LocalDate.now().minusDays(100), true);
+        bookRepository.findById(book.getId());
+        bookRepository.findByIsbn("123");
+
+        job.archive();
+        assertThat(archiveRepository.count()).isEqualTo(1);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(bookRepository.findById(book.getId())).isPresent();
+        assertThat(bookRepository.findByIsbn("123")).isPresent();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Listar empréstimos ativos e, sob demanda, também os arquivados")
+    public void testListingsCanIncludeTheArchive(){
+        loan(LocalDate.now().minusDays(100), true);
+        loan(LocalDate.now().minusDays(101), true);
+        Loan hot = loan(LocalDate.now(), false);
+        job.archive();
+
+        LoanFilterDTO hotOnly = LoanFilterDTO.builder().customer(CUSTOMER).build();
+        LoanFilterDTO withArchive = LoanFilterDTO.builder().customer(CUSTOMER).includeArchive(true).build();
+
+        assertThat(service.find(hotOnly, PageRequest.of(0, 10)).getContent())
+                .extracting(Loan::getId).containsExactly(hot.getId());
+
+        Page<Loan> first = service.find(withArchive, PageRequest.of(0, 2));
+        Page<Loan> second = service.find(withArchive, PageRequest.of(1, 2));
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.getContent().get(0).getId()).isEqualTo(hot.getId());
+        assertThat(second.getContent()).hasSize(1)
+                .allMatch(loan -> loan.getStatus() == LoanStatus.RETURNED && loan.getBook() != null);
+
+        assertThat(service.getLoansByBook(book, PageRequest.of(0, 10), false).getTotalElements()).isEqualTo(1);
+        assertThat(service.getLoansByBook(book, PageRequest.of(0, 10), true).getTotalElements()).isEqualTo(3);
+    }
+
+    /**
+     * A loan taken on the given day and, if returned, brought back when it was due.
+     */
+    private Loan loan(LocalDate loanDate, boolean returned){
+        Loan loan = Loan.builder().book(book).customer(CUSTOMER).loanDate(loanDate)
+                .dueDate(loanDate.plusDays(3)).build();
+        if (returned) {
+            loan.setReturnedAt(loan.getDueDate());
+        }
+        loan.setReturned(returned);
+        return loanRepository.save(loan);
+    }
+}
@@ -0,0 +1,69 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.Book;
+import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Model.LoanStatus;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "application.mail.outbox.enabled=false",
+        "application.loans.backfill.chunk-size=2"
+})
+public class LoanDueDateBackfillTest {
+
+    @Autowired
+    LoanDueDateBackfill backfill;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Preencher data de devolução e situação dos empréstimos antigos")
+    public void testBackfillSetsDueDateAndStatus(){
+        Book regular = bookRepository.save(Book.builder().title("Livro").author("Autor").isbn("1").build());
+        Book shortLoan = bookRepository.save(Book.builder().title("Livro").author("Autor").isbn("2").loanPeriodDays(30).build());
+        Loan late = legacyLoan(regular, LocalDate.now().minusDays(10), null);
+        Loan returned = legacyLoan(regular, LocalDate.now().minusDays(10), true);
+        Loan recent = legacyLoan(regular, LocalDate.now(), false);
+        Loan longPeriod = legacyLoan(shortLoan, LocalDate.now().minusDays(10), null);
+
+        backfill.backfill();
+
+        assertThat(reload(late).getDueDate()).isEqualTo(LocalDate.now().minusDays(7));
+        assertThat(reload(late).getStatus()).isEqualTo(LoanStatus.OVERDUE);
+        assertThat(reload(returned).getStatus()).isEqualTo(LoanStatus.RETURNED);
+        assertThat(reload(recent).getStatus()).isEqualTo(LoanStatus.ACTIVE);
+        assertThat(reload(longPeriod).getDueDate()).isEqualTo(LocalDate.now().plusDays(20));
+        assertThat(reload(longPeriod).getStatus()).isEqualTo(LoanStatus.ACTIVE);
+    }
+
+    private Loan legacyLoan(Book book, LocalDate loanDate, Boolean returned){
+        Loan loan = Loan.builder().book(book).customer("João").loanDate(loanDate).returned(returned).build();
+        return loanRepository.save(loan);
+    }
+
+    private Loan reload(Loan loan){
+        return loanRepository.findById(loan.getId()).get();
+    }
+}
@@ -1,9 +1,14 @@
 package com.book.libraryapi.Service;
 
+import com.book.libraryapi.Dto.BatchItemResultDTO;
 import com.book.libraryapi.Dto.LoanFilterDTO;
+import com.book.libraryapi.Dto.ReturnedLoanDTO;
 import com.book.libraryapi.Exception.BusinessException;
 import com.book.libraryapi.Model.Book;
 import com.book.libraryapi.Model.Loan;
+import com.book.libraryapi.Model.LoanArchive;
+import com.book.libraryapi.Repository.BookRepository;
+import com.book.libraryapi.Repository.LoanArchiveRepository;
 import com.book.libraryapi.Repository.LoanRepository;
 import com.book.libraryapi.Service.Impl.LoanServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,13 +20,19 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,13 +41,66 @@ import java.util.Optional;
 public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
+    @MockBean
+    LoanArchiveRepository archiveRepository;
+    @MockBean
+    BookRepository bookRepository;
     LoanService service;
     static final LocalDate DATE = LocalDate.now();
     static final String CUSTOMER = "João";
 
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, archiveRepository, bookRepository, Mockito.mock(EntityManager.class),
+                new LoanPeriodPolicy(3, Collections.singletonMap("vip@email.com", 10)));
+    }
+
+    @Test
+    @DisplayName("Emprestar livros em lote reservando os livros em um único lote")
+    @SuppressWarnings("unchecked")
+    public void testSaveAllLoans(){
+        Book free = Book.builder().id(1L).isbn("1").build();
+        Book loaned = Book.builder().id(2L).isbn("2").build();
+        List<Loan> loans = Arrays.asList(
+                Loan.builder().book(free).customer(CUSTOMER).loanDate(DATE).build(),
+                Loan.builder().book(loaned).customer(CUSTOMER).loanDate(DATE).build(),
+                Loan.builder().book(free).customer("Maria").loanDate(DATE).build());
+
+        Mockito.when(repository.saveAllAndFlush(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Loan> saving = invocation.getArgument(0);
+            for (int i = 0; i < saving.size(); i++) {
+                saving.get(i).setId(10L + i);
+            }
+            return saving;
+        });
+        Mockito.when(bookRepository.claimForLoans(Arrays.asList(1L, 2L), Arrays.asList(10L, 11L)))
+                .thenReturn(new int[]{1, 0});
+
+        List<BatchItemResultDTO> results = service.saveAll(loans);
+
+        assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.CREATED, BatchItemResultDTO.Status.FAILED, BatchItemResultDTO.Status.FAILED);
+        assertThat(results.get(0).getId()).isEqualTo(10L);
+        assertThat(results.get(1).getErros()).containsExactly("Book already loaned");
+        assertThat(results.get(2).getErros()).containsExactly("Book already loaned");
+        Mockito.verify(repository).deleteAllByIdInBatch(Collections.singleton(11L));
+    }
+
+    @Test
+    @DisplayName("Devolver empréstimos em lote")
+    public void testReturnAllLoans(){
+        Loan loan = createLoan();
+        loan.setId(1L);
+        Mockito.when(repository.findAllById(Mockito.anyCollection())).thenReturn(Arrays.asList(loan));
+
+        List<BatchItemResultDTO> results = service.returnAll(Arrays.asList(
+                ReturnedLoanDTO.builder().id(1L).returned(true).build(),
+                ReturnedLoanDTO.builder().id(2L).returned(true).build()));
+
+        assertThat(results).extracting(BatchItemResultDTO::getStatus).containsExactly(
+                BatchItemResultDTO.Status.UPDATED, BatchItemResultDTO.Status.NOT_FOUND);
+        assertThat(loan.getReturned()).isTrue();
+        Mockito.verify(bookRepository).releaseLoans(Arrays.asList(1L));
     }
 
     @Test
@@ -55,8 +119,8 @@ public class LoanServiceTest {
                 .book(book)
                 .build();
 
-        Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
         Mockito.when(repository.save(savingLoan)).thenReturn(savedLoan);
+        Mockito.when(bookRepository.claimForLoan(1L, 1L)).thenReturn(1);
 
         Loan saveLan = service.save(savingLoan);
 
@@ -64,6 +128,24 @@ public class LoanServiceTest {
         assertThat(saveLan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         assertThat(saveLan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(saveLan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        assertThat(savingLoan.getDueDate()).isEqualTo(DATE.plusDays(3));
+    }
+
+    @Test
+    @DisplayName("Calcular a data de devolução pelo prazo do livro, do cliente ou padrão")
+    public void testDueDateFollowsLoanPeriodPolicy(){
+        Book shortLoan = Book.builder().id(1L).loanPeriodDays(1).build();
+        Book regular = Book.builder().id(2L).build();
+        Mockito.when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.when(bookRepository.claimForLoan(Mockito.anyLong(), Mockito.any())).thenReturn(1);
+
+        Loan byBook = service.save(Loan.builder().book(shortLoan).customerEmail("vip@email.com").loanDate(DATE).build());
+        Loan byCustomer = service.save(Loan.builder().book(regular).customerEmail("vip@email.com").loanDate(DATE).build());
+        Loan byDefault = service.save(Loan.builder().book(regular).customerEmail("a@email.com").loanDate(DATE).build());
+
+        assertThat(byBook.getDueDate()).isEqualTo(DATE.plusDays(1));
+        assertThat(byCustomer.getDueDate()).isEqualTo(DATE.plusDays(10));
+        assertThat(byDefault.getDueDate()).isEqualTo(DATE.plusDays(3));
     }
 
     @Test
@@ -77,14 +159,13 @@ public class LoanServiceTest {
                 .loanDate(DATE)
                 .build();
 
-        Mockito.when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        Mockito.when(repository.save(savingLoan)).thenReturn(Loan.builder().id(2L).book(book).build());
+        Mockito.when(bookRepository.claimForLoan(1L, 2L)).thenReturn(0);
 
         Throwable ex = catchThrowable( () -> service.save(savingLoan));
 
         assertThat(ex).isInstanceOf(BusinessException.class)
                 .hasMessage("Book already loaned");
-
-        Mockito.verify(repository,Mockito.never()).save(savingLoan);
     }
 
     @Test
@@ -122,6 +203,37 @@ public class LoanServiceTest {
 
         assertThat(updateLan.getReturned()).isTrue();
         Mockito.verify(repository).save(loan);
+        Mockito.verify(bookRepository).releaseLoans(Collections.singletonList(1L));
+    }
+
+    @Test
+    @DisplayName("Recusar reabrir um empréstimo já devolvido")
+    public void testUpdateDoesNotReopenReturnedLoan(){
+        Loan reopening = createLoan();
+        reopening.setId(1L);
+        reopening.setReturned(false);
+        Mockito.when(repository.findStoredReturnedById(1L)).thenReturn(Optional.of(true));
+
+        Throwable ex = catchThrowable(() -> service.update(reopening));
+
+        assertThat(ex).isInstanceOf(BusinessException.class).hasMessage("Loan already returned");
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Recusar reabrir empréstimos já devolvidos no lote")
+    public void testReturnAllDoesNotReopenReturnedLoans(){
+        Loan returned = createLoan();
+        returned.setId(1L);
+        returned.setReturned(true);
+        Mockito.when(repository.findAllById(Mockito.anyCollection())).thenReturn(Arrays.asList(returned));
+
+        List<BatchItemResultDTO> results = service.returnAll(Arrays.asList(
+                ReturnedLoanDTO.builder().id(1L).returned(false).build()));
+
+        assertThat(results.get(0).getStatus()).isEqualTo(BatchItemResultDTO.Status.FAILED);
+        assertThat(results.get(0).getErros()).containsExactly("Loan already returned");
+        assertThat(returned.getReturned()).isTrue();
     }
 
     @Test
@@ -151,6 +263,79 @@ public class LoanServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Ler o arquivo só quando a página ativa não basta e contá-lo só quando preciso")
+    public void testArchiveIsReadOnlyWhenNeeded(){
+        Book book = Book.builder().id(1L).build();
+        Loan hot = createLoan();
+        hot.setId(1L);
+        LoanArchive archived = LoanArchive.builder().id(2L).book(book).returned(true).build();
+
+        PageRequest full = PageRequest.of(0, 1);
+        Mockito.when(repository.findByBook(book, full)).thenReturn(new PageImpl<>(Arrays.asList(hot), full, 4));
+        Mockito.when(archiveRepository.countByBook(book)).thenReturn(3L);
+
+        Page<Loan> firstPage = service.getLoansByBook(book, full, true);
+
+        assertThat(firstPage.getContent()).extracting(Loan::getId).containsExactly(1L);
+        assertThat(firstPage.getTotalElements()).isEqualTo(7);
+        Mockito.verify(archiveRepository, Mockito.never()).findByBook(Mockito.any(Book.class), Mockito.any(Pageable.class));
+
+        Mockito.reset(archiveRepository);
+        PageRequest large = PageRequest.of(0, 10);
+        Mockito.when(repository.findByBook(book, large)).thenReturn(new PageImpl<>(Arrays.asList(hot), large, 1));
+        Mockito.when(archiveRepository.findByBook(Mockito.eq(book), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(archived));
+
+        Page<Loan> onlyPage = service.getLoansByBook(book, large, true);
+
+        assertThat(onlyPage.getContent()).extracting(Loan::getId).containsExactly(1L, 2L);
+        assertThat(onlyPage.getTotalElements()).isEqualTo(2);
+        Mockito.verify(archiveRepository, Mockito.never()).countByBook(book);
+    }
+
+    @Test
+    @DisplayName("Marcar os atrasados e percorrê-los em blocos pela data de devolução")
+    public void testForEachLateLoanChunk(){
+        LocalDate due = DATE.minusDays(5);
+        Loan first = createLoan();
+        first.setId(1L);
+        first.setDueDate(due);
+        Loan second = createLoan();
+        second.setId(2L);
+        second.setDueDate(due.plusDays(1));
+        Loan third = createLoan();
+        third.setId(3L);
+        third.setDueDate(due.plusDays(1));
+
+        Mockito.when(repository.findEarliestOverdueDueDate()).thenReturn(Optional.of(due));
+        Mockito.when(repository.findOverdueAfter(Mockito.eq(due), Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(first, second));
+        Mockito.when(repository.findOverdueAfter(Mockito.eq(due.plusDays(1)), Mockito.eq(2L), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(third));
+
+        List<List<Loan>> chunks = new ArrayList<>();
+        service.forEachLateLoanChunk(2, chunks::add);
+
+        assertThat(chunks).containsExactly(Arrays.asList(first, second), Arrays.asList(third));
+        Mockito.verify(repository).markOverdue(LocalDate.now());
+        Mockito.verify(repository, Mockito.times(2))
+                .findOverdueAfter(Mockito.any(LocalDate.class), Mockito.anyLong(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Não percorrer nada quando não houver empréstimos atrasados")
+    public void testForEachLateLoanChunkWithoutOverdueLoans(){
+        Mockito.when(repository.findEarliestOverdueDueDate()).thenReturn(Optional.empty());
+
+        List<List<Loan>> chunks = new ArrayList<>();
+        service.forEachLateLoanChunk(2, chunks::add);
+
+        assertThat(chunks).isEmpty();
+        Mockito.verify(repository, Mockito.never())
+                .findOverdueAfter(Mockito.any(LocalDate.class), Mockito.anyLong(), Mockito.any(Pageable.class));
+    }
+
     public static Loan createLoan(){
         Book book = Book.builder().id(1L).build();
 
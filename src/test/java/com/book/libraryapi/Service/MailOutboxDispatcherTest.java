@@ -0,0 +1,142 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.MailOutbox;
+import com.book.libraryapi.Model.MailOutboxStatus;
+import com.book.libraryapi.Repository.MailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.mail.internet.MimeMessage;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "application.mail.outbox.poll-interval-ms=3600000",
+        "application.mail.outbox.max-attempts=2",
+        "application.mail.outbox.backoff-ms=0"
+})
+public class MailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    MailOutboxDispatcher dispatcher;
+
+    @Autowired
+    MailOutboxRepository repository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @SpyBean
+    JavaMailSender mailSender;
+
+    @BeforeEach
+    public void setUp(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Entregar os e-mails da outbox no servidor SMTP")
+    public void testDrainDeliversOneMessagePerRecipient() throws Exception {
+        emailService.sendMails("Livro atrasado", Arrays.asList("a@email.com", "b@email.com"));
+
+        assertThat(repository.countByStatus(MailOutboxStatus.PENDING)).isEqualTo(2);
+
+        dispatcher.dispatch().join();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getSubject()).isEqualTo("Livro com empréstimo atrasado!");
+        assertThat(repository.findAll())
+                .extracting(MailOutbox::getStatus)
+                .containsOnly(MailOutboxStatus.SENT);
+    }
+
+    @Test
+    @DisplayName("Gravar os e-mails na outbox em lote")
+    public void testEnqueueBatchesInserts(){
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            recipients.add("leitor" + i + "@email.com");
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        emailService.sendMails("Livro atrasado", recipients);
+
+        // one sequence call and one batched insert, not an insert per row
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(20);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        assertThat(repository.countByStatus(MailOutboxStatus.PENDING)).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("Tentar novamente e desistir após o limite de tentativas")
+    public void testDrainRetriesAndGivesUp(){
+        emailService.sendMails("Livro atrasado", Arrays.asList("not an address"));
+
+        dispatcher.dispatch().join();
+
+        MailOutbox retrying = repository.findAll().get(0);
+        assertThat(retrying.getAttempts()).isEqualTo(1);
+        assertThat(retrying.getStatus()).isEqualTo(MailOutboxStatus.PENDING);
+
+        dispatcher.dispatch().join();
+
+        List<MailOutbox> entries = repository.findAll();
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getAttempts()).isEqualTo(2);
+        assertThat(entries.get(0).getStatus()).isEqualTo(MailOutboxStatus.FAILED);
+        assertThat(entries.get(0).getLastError()).isNotNull();
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Descartar o resultado de uma entrega reassumida por outro dispatcher")
+    public void testResultOfAReclaimedEntryIsDiscarded(){
+        emailService.sendMails("Livro atrasado", Arrays.asList("a@email.com"));
+        Mockito.doAnswer(invocation -> {
+            // the lease ran out mid-send and another node claimed the row again
+            MailOutbox reclaimed = repository.findAll().get(0);
+            reclaimed.setLastError("reassumido");
+            repository.save(reclaimed);
+            return invocation.callRealMethod();
+        }).when(mailSender).send(Mockito.any(SimpleMailMessage.class));
+
+        dispatcher.dispatch().join();
+
+        MailOutbox entry = repository.findAll().get(0);
+        assertThat(entry.getStatus()).isEqualTo(MailOutboxStatus.SENDING);
+        assertThat(entry.getLastError()).isEqualTo("reassumido");
+        assertThat(entry.getAttempts()).isZero();
+    }
+}
@@ -0,0 +1,86 @@
+package com.book.libraryapi.Service;
+
+import com.book.libraryapi.Model.Loan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    static final String MESSAGE = "Livro atrasado";
+
+    @MockBean
+    LoanService loanService;
+    @MockBean
+    EmailService emailService;
+    ScheduleService service;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setUp(){
+        this.registry = new SimpleMeterRegistry();
+        this.service = new ScheduleService(loanService, emailService, registry);
+        ReflectionTestUtils.setField(service, "msg", MESSAGE);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "parallelism", 2);
+    }
+
+    @Test
+    @DisplayName("Enviar um e-mail por bloco de empréstimos atrasados")
+    @SuppressWarnings("unchecked")
+    public void testSendMailToLateLoansInChunks(){
+        Mockito.doAnswer(invocation -> {
+            Consumer<List<Loan>> consumer = invocation.getArgument(1);
+            consumer.accept(Arrays.asList(loanWithEmail("a@email.com"), loanWithEmail("b@email.com")));
+            consumer.accept(Arrays.asList(loanWithEmail("c@email.com"), loanWithEmail(null)));
+            return null;
+        }).when(loanService).forEachLateLoanChunk(Mockito.eq(2), Mockito.any(Consumer.class));
+
+        service.sendMailToLateLoans();
+
+        Mockito.verify(emailService).sendMails(MESSAGE, Arrays.asList("a@email.com", "b@email.com"));
+        Mockito.verify(emailService).sendMails(MESSAGE, Arrays.asList("c@email.com"));
+        Mockito.verifyNoMoreInteractions(emailService);
+        assertThat(registry.counter("mail.lateloans.recipients").count()).isEqualTo(3);
+        assertThat(registry.timer("mail.lateloans.send").count()).isEqualTo(2);
+        assertThat(registry.timer("mail.lateloans.job").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Continuar o envio quando um bloco falhar")
+    @SuppressWarnings("unchecked")
+    public void testFailedChunkDoesNotStopTheJob(){
+        Mockito.doAnswer(invocation -> {
+            Consumer<List<Loan>> consumer = invocation.getArgument(1);
+            consumer.accept(Arrays.asList(loanWithEmail("a@email.com")));
+            consumer.accept(Arrays.asList(loanWithEmail("b@email.com")));
+            return null;
+        }).when(loanService).forEachLateLoanChunk(Mockito.eq(2), Mockito.any(Consumer.class));
+        Mockito.doThrow(new IllegalStateException("smtp down"))
+                .when(emailService).sendMails(MESSAGE, Arrays.asList("a@email.com"));
+
+        service.sendMailToLateLoans();
+
+        Mockito.verify(emailService).sendMails(MESSAGE, Arrays.asList("b@email.com"));
+        assertThat(registry.counter("mail.lateloans.failed.chunks").count()).isEqualTo(1);
+    }
+
+    private Loan loanWithEmail(String email){
+        return Loan.builder().customer("João").customerEmail(email).build();
+    }
+}